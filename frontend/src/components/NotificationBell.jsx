@@ -6,6 +6,7 @@ const NotificationBell = () => {
     const [unreadCount, setUnreadCount] = useState(0);
     const [isOpen, setIsOpen] = useState(false);
     const dropdownRef = useRef(null);
+    const seenIds = useRef(new Set());
 
     const fetchNotifications = async () => {
         try {
@@ -13,6 +14,7 @@ const NotificationBell = () => {
                 api.get('/notifications'),
                 api.get('/notifications/unread-count')
             ]);
+            seenIds.current = new Set(notifsRes.data.map(n => n.id));
             setNotifications(notifsRes.data);
             setUnreadCount(countRes.data);
         } catch (error) {
@@ -22,9 +24,57 @@ const NotificationBell = () => {
 
     useEffect(() => {
         fetchNotifications();
-        // Poll every 30 seconds
-        const interval = setInterval(fetchNotifications, 30000);
-        return () => clearInterval(interval);
+
+        const token = localStorage.getItem("token");
+        if (!token || typeof EventSource === 'undefined') {
+            // No push channel available: fall back to polling every 30 seconds
+            const interval = setInterval(fetchNotifications, 30000);
+            return () => clearInterval(interval);
+        }
+
+        // New notifications are pushed by the server. The stream URL carries a
+        // single-use ticket instead of the token, so every (re)connect fetches a
+        // new one and passes the last id seen to have missed ones replayed
+        let source = null;
+        let retryTimer = null;
+        let closed = false;
+        let lastEventId = null;
+
+        const connect = async () => {
+            try {
+                const { data } = await api.post('/notifications/stream-ticket');
+                if (closed) return;
+                const params = new URLSearchParams({ ticket: data.ticket });
+                if (lastEventId) params.set('lastEventId', lastEventId);
+                source = new EventSource(`${api.defaults.baseURL}/notifications/stream?${params}`);
+                source.addEventListener('notification', (event) => {
+                    lastEventId = event.lastEventId || lastEventId;
+                    const notification = JSON.parse(event.data);
+                    if (seenIds.current.has(notification.id)) return;
+                    seenIds.current.add(notification.id);
+                    setNotifications(prev => [notification, ...prev]);
+                    if (!notification.read) setUnreadCount(count => count + 1);
+                });
+                source.onerror = () => {
+                    // The spent ticket cannot be reused by the browser's own reconnect
+                    source.close();
+                    scheduleReconnect();
+                };
+            } catch (error) {
+                scheduleReconnect();
+            }
+        };
+
+        const scheduleReconnect = () => {
+            if (!closed) retryTimer = setTimeout(connect, 5000);
+        };
+
+        connect();
+        return () => {
+            closed = true;
+            clearTimeout(retryTimer);
+            if (source) source.close();
+        };
     }, []);
 
     // Close dropdown when clicking outside
@@ -54,6 +54,8 @@ export default function Dashboard() {
   const [activeTab, setActiveTab] = useState("active"); // "active", "bookings", "history"
   const [page, setPage] = useState(0);
   const [hasMore, setHasMore] = useState(true);
+  // Continuation token of the ride list (my-offers / all rides); null on the first page
+  const [ridesCursor, setRidesCursor] = useState(null);
 
 
 
@@ -274,13 +276,18 @@ export default function Dashboard() {
       let pastRides = [];
 
       if (user.role === "OWNER") {
-        // Fetch rides created by owner
-        const createdRes = await api.get(`/rides/my-offers?page=${pageToFetch}&size=20`, {
-          headers: { Authorization: `Bearer ${token}` }
-        });
-        const ridesPage = createdRes.data || {};
+        // Fetch rides created by owner (skipped once the last page was loaded)
+        let ridesPage = {};
+        if (!append || ridesCursor) {
+          const cursorParam = append ? `&cursor=${encodeURIComponent(ridesCursor)}` : "";
+          const createdRes = await api.get(`/rides/my-offers?size=20${cursorParam}`, {
+            headers: { Authorization: `Bearer ${token}` }
+          });
+          ridesPage = createdRes.data || {};
+        }
         const allCreated = ridesPage.content || [];
-        setHasMore(ridesPage.totalPages > pageToFetch + 1);
+        setRidesCursor(ridesPage.nextCursor || null);
+        setHasMore(!!ridesPage.nextCursor);
 
         // Separate rides by timing and status
         const now = new Date();
@@ -323,12 +330,14 @@ export default function Dashboard() {
         completed = [...completed, ...enrichedPassengerCompleted];
 
       } else if (user.role === "ADMIN") {
-        const allRidesRes = await api.get(`/rides?page=${pageToFetch}&size=20`, {
+        const cursorParam = append && ridesCursor ? `&cursor=${encodeURIComponent(ridesCursor)}` : "";
+        const allRidesRes = await api.get(`/rides?size=20${cursorParam}`, {
           headers: { Authorization: `Bearer ${token}` }
         });
         const ridesPage = allRidesRes.data || {};
         const allRides = ridesPage.content || [];
-        setHasMore(ridesPage.totalPages > pageToFetch + 1);
+        setRidesCursor(ridesPage.nextCursor || null);
+        setHasMore(!!ridesPage.nextCursor);
         created = allRides.filter(r => r.active !== false && r.status !== "COMPLETED" && r.status !== "IN_PROGRESS");
         inProgress = allRides.filter(r => r.status === "IN_PROGRESS");
         completed = allRides.filter(r => r.status === "COMPLETED");
@@ -0,0 +1,93 @@
+#!/usr/bin/env bash
+# Compares backend modes under high concurrency, e.g. platform vs virtual threads.
+#
+# Start the backend on Java 21 once per mode and run this script against it:
+#   HIGHWAYLINK_VIRTUAL_THREADS=false java -jar app.jar   ->  scripts/bench-threads.sh platform
+#   HIGHWAYLINK_VIRTUAL_THREADS=true  java -jar app.jar   ->  scripts/bench-threads.sh virtual
+# The label is free text, so builds can be compared the same way (blocking vs
+# reactive reads).
+#
+# Needs hey (https://github.com/rakyll/hey). Environment:
+#   BASE_URL     backend URL (default http://localhost:8080)
+#   TOKEN        JWT of a user, for the authenticated endpoints
+#   CONCURRENCY  concurrent connections (default 800, above Tomcat's 200 threads)
+#   DURATION     per endpoint (default 60s)
+#   RIDE_ID      also benchmark /api/rides/{id} with this ride
+#   DRIVER_ID    also benchmark /api/reviews/driver/{id} with this driver
+#   SAMPLE_SECS  how often MongoDB pool metrics are sampled during a run (default 1)
+# Prints requests/s, p99 latency and the peak MongoDB connections checked out of
+# and opened by each pool (blocking and reactive client, read from
+# /actuator/metrics/mongodb.driver.pool.*, so TOKEN is needed for those) per
+# endpoint. Results are appended to bench-threads.csv so runs can be compared
+# side by side.
+set -euo pipefail
+
+MODE="${1:?usage: bench-threads.sh <label, e.g. platform|virtual>}"
+BASE_URL="${BASE_URL:-http://localhost:8080}"
+CONCURRENCY="${CONCURRENCY:-800}"
+DURATION="${DURATION:-60s}"
+OUT="${OUT:-bench-threads.csv}"
+SAMPLE_SECS="${SAMPLE_SECS:-1}"
+
+ENDPOINTS=(
+  "/api/rides/search?origin=Colombo&destination=Kandy"
+  "/api/rides/public?origin=Galle"
+  "/api/rides/my-rides"
+  "/api/notifications/feed"
+)
+if [ -n "${RIDE_ID:-}" ]; then
+  ENDPOINTS+=("/api/rides/${RIDE_ID}")
+fi
+if [ -n "${DRIVER_ID:-}" ]; then
+  ENDPOINTS+=("/api/reviews/driver/${DRIVER_ID}")
+fi
+
+POOLS=(checkedout:blocking checkedout:reactive size:blocking size:reactive)
+
+[ -f "$OUT" ] || echo "mode,endpoint,concurrency,requests_per_sec,p99_ms,peak_checkedout_blocking,peak_checkedout_reactive,peak_size_blocking,peak_size_reactive" > "$OUT"
+
+auth=()
+if [ -n "${TOKEN:-}" ]; then
+  auth=(-H "Authorization: Bearer ${TOKEN}")
+fi
+
+# Current value of mongodb.driver.pool.<metric> for one client (summed over
+# servers); 0 when the pool has not been opened yet
+pool_value() {
+  curl -fsS "${auth[@]}" "${BASE_URL}/actuator/metrics/mongodb.driver.pool.$1?tag=client:$2" 2>/dev/null \
+    | grep -o '"value": *[0-9.eE+-]*' | head -1 | sed 's/.*: *//' || true
+}
+
+# Writes the peak of every pool metric to $1 until killed
+sample_pools() {
+  declare -A peak
+  for pool in "${POOLS[@]}"; do peak[$pool]=0; done
+  trap 'for pool in "${POOLS[@]}"; do printf "%s " "${peak[$pool]}"; done > "$1"; echo >> "$1"; exit 0' TERM
+  while true; do
+    for pool in "${POOLS[@]}"; do
+      value="$(pool_value "${pool%%:*}" "${pool##*:}")"
+      value="${value:-0}"
+      peak[$pool]="$(awk -v a="${peak[$pool]}" -v b="$value" 'BEGIN { printf "%d", (b > a ? b : a) }')"
+    done
+    sleep "$SAMPLE_SECS" &
+    wait $!
+  done
+}
+
+for endpoint in "${ENDPOINTS[@]}"; do
+  peaks="$(mktemp)"
+  sample_pools "$peaks" &
+  sampler=$!
+  report="$(hey -z "$DURATION" -c "$CONCURRENCY" "${auth[@]}" "${BASE_URL}${endpoint}")"
+  kill -TERM "$sampler"
+  wait "$sampler" || true
+  read -r co_blocking co_reactive size_blocking size_reactive < "$peaks"
+  rm -f "$peaks"
+
+  rps="$(awk '/Requests\/sec/ {print $2}' <<<"$report")"
+  p99="$(awk '/ 99% in / {printf "%.1f", $3 * 1000}' <<<"$report")"
+  echo "${MODE} ${endpoint}: ${rps} req/s, p99 ${p99} ms," \
+    "peak connections checked out ${co_blocking} blocking / ${co_reactive} reactive," \
+    "pool size ${size_blocking} / ${size_reactive}"
+  echo "${MODE},${endpoint},${CONCURRENCY},${rps},${p99},${co_blocking},${co_reactive},${size_blocking},${size_reactive}" >> "$OUT"
+done
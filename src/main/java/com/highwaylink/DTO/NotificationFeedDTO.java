@@ -0,0 +1,48 @@
+package com.highwaylink.DTO;
+
+import java.util.List;
+
+import com.highwaylink.model.Notification;
+
+// One page of a user's notification feed, newest first. nextCursor is passed back
+// as "before" to load older items (null when there are none); latestCursor as
+// "since" to load items newer than this page. A "since" page may repeat items the
+// client already has (see NotificationService.getFeed); skip them by id.
+public class NotificationFeedDTO {
+    private List<Notification> items;
+    private String nextCursor;
+    private String latestCursor;
+
+    public NotificationFeedDTO() {
+    }
+
+    public NotificationFeedDTO(List<Notification> items, String nextCursor, String latestCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.latestCursor = latestCursor;
+    }
+
+    public List<Notification> getItems() {
+        return items;
+    }
+
+    public void setItems(List<Notification> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public String getLatestCursor() {
+        return latestCursor;
+    }
+
+    public void setLatestCursor(String latestCursor) {
+        this.latestCursor = latestCursor;
+    }
+}
@@ -19,6 +19,7 @@ public class RideDTO {
     private int totalSeats;
     private double pricePerSeat;
     private String schedule;
+    private String seriesId;
     private boolean active;
     private Date createdAt;
     private String status; // NEW: Ride status field
@@ -153,6 +154,14 @@ public class RideDTO {
         this.schedule = schedule;
     }
 
+    public String getSeriesId() {
+        return seriesId;
+    }
+
+    public void setSeriesId(String seriesId) {
+        this.seriesId = seriesId;
+    }
+
     public boolean isActive() {
         return active;
     }
@@ -0,0 +1,45 @@
+package com.highwaylink.DTO;
+
+import java.util.List;
+
+// One keyset page of rides. nextCursor is an opaque token passed back as "cursor"
+// for the following page (null on the last page). totalElements is only filled in
+// when asked for with includeTotal, and may be an estimate.
+public class RidePageDTO {
+    private List<RideDTO> content;
+    private String nextCursor;
+    private Long totalElements;
+
+    public RidePageDTO() {
+    }
+
+    public RidePageDTO(List<RideDTO> content, String nextCursor, Long totalElements) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.totalElements = totalElements;
+    }
+
+    public List<RideDTO> getContent() {
+        return content;
+    }
+
+    public void setContent(List<RideDTO> content) {
+        this.content = content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public Long getTotalElements() {
+        return totalElements;
+    }
+
+    public void setTotalElements(Long totalElements) {
+        this.totalElements = totalElements;
+    }
+}
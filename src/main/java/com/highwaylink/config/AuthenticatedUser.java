@@ -0,0 +1,33 @@
+package com.highwaylink.config;
+
+// The caller of an authenticated request, built by JwtFilter from the token claims
+// and the (cached) user record. Controllers receive it as a handler argument via
+// AuthenticatedUserArgumentResolver instead of looking the user up by email.
+public class AuthenticatedUser {
+
+    public static final String REQUEST_ATTRIBUTE = AuthenticatedUser.class.getName();
+
+    private final String userId;
+    private final String email;
+    private final String role;
+    private final String name;
+
+    public AuthenticatedUser(String userId, String email, String role, String name) {
+        this.userId = userId;
+        this.email = email;
+        this.role = role;
+        this.name = name;
+    }
+
+    public String getUserId() { return userId; }
+
+    public String getEmail() { return email; }
+
+    public String getRole() { return role; }
+
+    public String getName() { return name; }
+
+    public boolean isAdmin() {
+        return "ADMIN".equals(role);
+    }
+}
@@ -0,0 +1,52 @@
+package com.highwaylink.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import com.highwaylink.exception.UnauthorizedException;
+import com.highwaylink.model.User;
+import com.highwaylink.service.RequestUserLookup;
+
+// Supplies AuthenticatedUser handler arguments from the request attribute JwtFilter
+// sets. Tokens issued before the userId/name claims existed are completed from the
+// user record (loaded at most once per request). A @Nullable parameter is null for
+// anonymous callers, on endpoints that serve both.
+@Component
+public class AuthenticatedUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Autowired
+    private RequestUserLookup requestUserLookup;
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return AuthenticatedUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        AuthenticatedUser principal = (AuthenticatedUser) webRequest
+                .getAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (principal == null) {
+            if (parameter.isOptional()) {
+                return null;
+            }
+            throw new UnauthorizedException("Authentication required");
+        }
+        if (principal.getUserId() != null && principal.getName() != null) {
+            return principal;
+        }
+
+        User user = requestUserLookup.getByEmail(principal.getEmail());
+        AuthenticatedUser completed = new AuthenticatedUser(user.getId(), user.getEmail(), principal.getRole(),
+                user.getName());
+        webRequest.setAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE, completed, RequestAttributes.SCOPE_REQUEST);
+        return completed;
+    }
+}
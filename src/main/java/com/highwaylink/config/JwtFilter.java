@@ -3,13 +3,16 @@ package com.highwaylink.config;
 import java.io.IOException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -18,12 +21,20 @@ import jakarta.servlet.http.HttpServletResponse;
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
+    private static final String STREAM_PATH = "/api/notifications/stream";
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
+    @Autowired
+    private StreamTicketStore streamTicketStore;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
             HttpServletResponse response,
@@ -33,32 +44,65 @@ public class JwtFilter extends OncePerRequestFilter {
         String path = request.getRequestURI();
 
         if (path.startsWith("/api/auth/login") ||
-                path.startsWith("/api/auth/signup") ||
-                path.startsWith("/api/rides/public")) {
+                path.startsWith("/api/auth/signup")) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        String authHeader = request.getHeader("Authorization");
-        String token = null;
-        String username = null;
-
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            token = authHeader.substring(7);
-            username = jwtUtil.extractUsername(token);
+        // EventSource cannot send headers, so the notification stream authenticates
+        // with a single-use ticket (see StreamTicketStore), never with the JWT itself
+        if (path.equals(STREAM_PATH)) {
+            AuthenticatedUser ticketUser = streamTicketStore.redeem(request.getParameter("ticket"));
+            if (ticketUser != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                authenticate(request, ticketUser.getEmail(), ticketUser.getUserId(), ticketUser.getRole(),
+                        ticketUser.getName());
+            }
+            filterChain.doFilter(request, response);
+            return;
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        String authHeader = request.getHeader("Authorization");
+
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // One signature check covers subject, expiry and the other claims
+            Claims claims = jwtUtil.parseClaims(authHeader.substring(7));
+            String username = claims != null ? claims.getSubject() : null;
 
-            if (jwtUtil.validateToken(token, userDetails)) {
-                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userDetails,
-                        null, userDetails.getAuthorities());
-                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authToken);
+            if (username != null) {
+                authenticate(request, username, claims.get("userId", String.class),
+                        claims.get("role", String.class), claims.get("name", String.class));
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private void authenticate(HttpServletRequest request, String username, String userId, String tokenRole,
+            String name) {
+        UserDetails userDetails = loadUser(username);
+        if (userDetails == null) {
+            return;
+        }
+        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                userDetails, null, userDetails.getAuthorities());
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+
+        // Role from the cached user so role changes apply before the token expires
+        String role = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .findFirst()
+                .orElse(tokenRole);
+        request.setAttribute(AuthenticatedUser.REQUEST_ATTRIBUTE, new AuthenticatedUser(userId, username, role, name));
+    }
+
+    // A token of a deleted user stays unauthenticated, as before
+    private UserDetails loadUser(String username) {
+        try {
+            return userDetailsCache.get(username, userDetailsService::loadUserByUsername);
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
 }
@@ -13,9 +13,11 @@ import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 
 @Component
 public class JwtUtil {
@@ -26,14 +28,25 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long jwtExpiration;
 
+    // Built once; both are immutable and thread-safe
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
+        return signingKey;
     }
 
-    public String generateToken(String email, String role, String userId) {
+    public String generateToken(String email, String role, String userId, String name) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("role", role);
         claims.put("userId", userId);
+        claims.put("name", name);
 
         return Jwts.builder()
                 .setClaims(claims)
@@ -44,53 +57,37 @@ public class JwtUtil {
                 .compact();
     }
 
-    public boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username != null && username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
-
-    public String extractUsername(String token) {
-        try {
-            return extractClaims(token).getSubject();
-        } catch (JwtException e) {
+    // Verifies the signature and expiry once and returns every claim, or null if
+    // the token is malformed, forged or expired
+    public Claims parseClaims(String token) {
+        if (token == null || token.isBlank()) {
             return null;
         }
-    }
-
-    public String extractUserId(String token) {
         try {
-            return extractClaims(token).get("userId", String.class);
-        } catch (JwtException e) {
+            return parser.parseClaimsJws(token).getBody();
+        } catch (JwtException | IllegalArgumentException e) {
             return null;
         }
     }
 
-    public String extractRole(String token) {
-        try {
-            return extractClaims(token).get("role", String.class);
-        } catch (JwtException e) {
-            return null;
-        }
+    public boolean validateToken(String token, UserDetails userDetails) {
+        Claims claims = parseClaims(token);
+        return claims != null && claims.getSubject() != null
+                && claims.getSubject().equals(userDetails.getUsername());
     }
 
-    private Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    public String extractUsername(String token) {
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.getSubject() : null;
     }
 
-    private boolean isTokenExpired(String token) {
-        Date expiration = extractExpiration(token);
-        return expiration != null && expiration.before(new Date());
+    public String extractUserId(String token) {
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.get("userId", String.class) : null;
     }
 
-    private Date extractExpiration(String token) {
-        try {
-            return extractClaims(token).getExpiration();
-        } catch (JwtException e) {
-            return null;
-        }
+    public String extractRole(String token) {
+        Claims claims = parseClaims(token);
+        return claims != null ? claims.get("role", String.class) : null;
     }
 }
@@ -0,0 +1,55 @@
+package com.highwaylink.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.autoconfigure.mongo.ReactiveMongoClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.MongoClient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.mongodb.DefaultMongoConnectionPoolTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.MongoConnectionPoolTagsProvider;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+
+// The reactive driver (ReactiveRideReadService) is a second MongoClient with its
+// own connection pool next to the blocking one. Built like Spring Boot's own
+// reactive client, from the same URI and customizers, but with its pool capped at
+// highwaylink.rides.reactive.max-pool-size so the two clients together stay
+// within the connection budget (see README). Non-blocking reads need few
+// connections: none is held while a request waits. The pool metrics
+// (mongodb.driver.pool.*) carry a client tag, blocking or reactive, so the two
+// pools can be told apart (see scripts/bench-threads.sh).
+@Configuration
+public class ReactiveMongoConfig {
+
+    private static final MongoConnectionPoolTagsProvider DEFAULT_TAGS = new DefaultMongoConnectionPoolTagsProvider();
+
+    // Used by Spring Boot's pool listener, which every client gets
+    @Bean
+    public MongoConnectionPoolTagsProvider mongoConnectionPoolTagsProvider() {
+        return event -> Tags.of(DEFAULT_TAGS.connectionPoolTags(event)).and("client", "blocking");
+    }
+
+    @Bean
+    public MongoClient reactiveStreamsMongoClient(ObjectProvider<MongoClientSettingsBuilderCustomizer> customizers,
+            MongoClientSettings settings, MeterRegistry meterRegistry,
+            @Value("${highwaylink.rides.reactive.max-pool-size:20}") int maxPoolSize) {
+        MongoMetricsConnectionPoolListener metrics = new MongoMetricsConnectionPoolListener(meterRegistry,
+                event -> Tags.of(DEFAULT_TAGS.connectionPoolTags(event)).and("client", "reactive"));
+
+        List<MongoClientSettingsBuilderCustomizer> all = new ArrayList<>(customizers.orderedStream().toList());
+        // Last, so it wins over a maxPoolSize in the connection URI and replaces the
+        // blocking-tagged listener
+        all.add(builder -> builder.applyToConnectionPoolSettings(pool -> pool.maxSize(maxPoolSize)
+                .connectionPoolListenerList(List.of(metrics))));
+        return new ReactiveMongoClientFactory(all).createMongoClient(settings);
+    }
+}
@@ -0,0 +1,50 @@
+package com.highwaylink.config;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+// Short-lived, single-use tickets for the notification stream. EventSource cannot
+// send an Authorization header, so the client trades its JWT for a ticket
+// (POST /api/notifications/stream-ticket) and puts only the ticket in the stream
+// URL; a logged URL then holds nothing reusable. Tickets live in this instance's
+// memory, so the stream must be opened on the instance that issued the ticket.
+@Component
+public class StreamTicketStore {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Cache<String, AuthenticatedUser> tickets;
+
+    public StreamTicketStore(
+            @Value("${highwaylink.notifications.stream.ticket-ttl-seconds:30}") long ttlSeconds,
+            @Value("${highwaylink.notifications.stream.ticket-max-size:10000}") long maxSize) {
+        this.tickets = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build();
+    }
+
+    public String issue(AuthenticatedUser user) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, user);
+        return ticket;
+    }
+
+    // The user the ticket was issued to, or null if it is unknown, expired or was
+    // already redeemed
+    public AuthenticatedUser redeem(String ticket) {
+        if (ticket == null || ticket.isEmpty()) {
+            return null;
+        }
+        return tickets.asMap().remove(ticket);
+    }
+}
@@ -0,0 +1,57 @@
+package com.highwaylink.config;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Bounded, TTL-limited cache of the UserDetails JwtFilter authenticates with, keyed
+// by email. Saves a findByEmail on every API call; UserService evicts entries when
+// a user is updated or deleted so role changes and deletions apply immediately on
+// this instance (other instances within the TTL). Lookups are counted in
+// highwaylink.auth.user_cache (tag "result" = hit/miss).
+@Component
+public class UserDetailsCache {
+
+    private final Cache<String, UserDetails> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public UserDetailsCache(MeterRegistry meterRegistry,
+            @Value("${highwaylink.auth.user-cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("${highwaylink.auth.user-cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .maximumSize(maxSize)
+                .build();
+        this.hits = meterRegistry.counter("highwaylink.auth.user_cache", "result", "hit");
+        this.misses = meterRegistry.counter("highwaylink.auth.user_cache", "result", "miss");
+        meterRegistry.gauge("highwaylink.auth.user_cache.size", cache, Cache::estimatedSize);
+    }
+
+    public UserDetails get(String email, Function<String, UserDetails> loader) {
+        UserDetails cached = cache.getIfPresent(email);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        UserDetails loaded = loader.apply(email);
+        cache.put(email, loaded);
+        return loaded;
+    }
+
+    public void evict(String email) {
+        if (email != null) {
+            cache.invalidate(email);
+        }
+    }
+}
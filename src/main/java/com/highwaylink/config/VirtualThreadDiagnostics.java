@@ -0,0 +1,82 @@
+package com.highwaylink.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+// Only active in virtual-thread mode (Java 21+ and spring.threads.virtual.enabled,
+// see application.properties). Streams the JFR jdk.VirtualThreadPinned event, i.e.
+// a virtual thread that blocked while pinned to its carrier (inside synchronized or
+// a native frame) for longer than pinned-threshold-ms. Each one is counted and timed
+// in highwaylink.threads.virtual.pinned and logged with the first application frame,
+// or the top frame when none is ours.
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadDiagnostics {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadDiagnostics.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.highwaylink.";
+
+    private final MeterRegistry meterRegistry;
+    private final long thresholdMs;
+    private RecordingStream stream;
+
+    public VirtualThreadDiagnostics(MeterRegistry meterRegistry,
+            @Value("${highwaylink.threads.virtual.pinned-threshold-ms:20}") long thresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.thresholdMs = thresholdMs;
+    }
+
+    @PostConstruct
+    void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        logger.info("Virtual threads enabled; reporting carrier pinning over {} ms", thresholdMs);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String site = pinnedAt(event.getStackTrace());
+        meterRegistry.timer("highwaylink.threads.virtual.pinned", "site", site).record(event.getDuration());
+        logger.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), site);
+    }
+
+    private static String pinnedAt(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith(APP_PACKAGE)) {
+                return type + "." + frame.getMethod().getName();
+            }
+        }
+        RecordedFrame top = frames.get(0);
+        return top.getMethod().getType().getName() + "." + top.getMethod().getName();
+    }
+}
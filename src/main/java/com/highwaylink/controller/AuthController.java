@@ -50,7 +50,8 @@ public class AuthController {
 
         User savedUser = authService.signup(user);
 
-        String token = jwtUtil.generateToken(savedUser.getEmail(), savedUser.getRole(), savedUser.getId());
+        String token = jwtUtil.generateToken(savedUser.getEmail(), savedUser.getRole(), savedUser.getId(),
+                savedUser.getName());
 
         UserDTO userDTO = dtoMapper.toUserDTO(savedUser);
 
@@ -76,7 +77,7 @@ public class AuthController {
         // Get user details
         User user = userService.getUserByEmail(loginRequest.getEmail());
 
-        String token = jwtUtil.generateToken(user.getEmail(), user.getRole(), user.getId());
+        String token = jwtUtil.generateToken(user.getEmail(), user.getRole(), user.getId(), user.getName());
 
         // Convert to UserDTO
         UserDTO userDTO = dtoMapper.toUserDTO(user);
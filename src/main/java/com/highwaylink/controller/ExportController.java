@@ -0,0 +1,70 @@
+package com.highwaylink.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.highwaylink.config.AuthenticatedUser;
+import com.highwaylink.exception.BadRequestException;
+import com.highwaylink.service.ExportService;
+import com.highwaylink.service.ExportService.Dataset;
+import com.highwaylink.service.ExportService.Format;
+
+@RestController
+@RequestMapping("/api/exports")
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportController.class);
+
+    @Autowired
+    private ExportService exportService;
+
+    // GET /api/exports/{rides|bookings|earnings}?from=YYYY-MM-DD&to=YYYY-MM-DD&format=ndjson|csv
+    @GetMapping("/{dataset}")
+    public ResponseEntity<StreamingResponseBody> export(
+            @PathVariable String dataset,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "ndjson") String format,
+            AuthenticatedUser caller) {
+
+        Dataset data = parseDataset(dataset);
+        Format output = Format.parse(format);
+        Query query = exportService.buildQuery(data, from, to, caller.getUserId(), caller.isAdmin());
+
+        logger.info("GET /api/exports/{} - user: {}, from: {}, to: {}, format: {}", dataset, caller.getUserId(), from,
+                to, format);
+
+        String extension = output == Format.CSV ? "csv" : "ndjson";
+        MediaType contentType = output == Format.CSV
+                ? new MediaType("text", "csv", java.nio.charset.StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson", java.nio.charset.StandardCharsets.UTF_8);
+
+        StreamingResponseBody body = out -> exportService.write(data, query, output, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"" + data.name().toLowerCase() + "." + extension + "\"")
+                .body(body);
+    }
+
+    private static Dataset parseDataset(String dataset) {
+        try {
+            return Dataset.valueOf(dataset.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown export: " + dataset + " (rides, bookings or earnings)");
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package com.highwaylink.controller;
 
 import java.util.List;
+import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import com.highwaylink.DTO.NotificationFeedDTO;
+import com.highwaylink.config.AuthenticatedUser;
+import com.highwaylink.config.StreamTicketStore;
 import com.highwaylink.model.Notification;
 import com.highwaylink.service.NotificationService;
-import com.highwaylink.service.UserService;
-import com.highwaylink.model.User;
+import com.highwaylink.service.NotificationStreamRegistry;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -19,20 +23,46 @@ public class NotificationController {
     private NotificationService notificationService;
 
     @Autowired
-    private UserService userService;
+    private NotificationStreamRegistry notificationStreamRegistry;
+
+    @Autowired
+    private StreamTicketStore streamTicketStore;
 
     @GetMapping
-    public ResponseEntity<List<Notification>> getUserNotifications(Authentication authentication) {
-        String email = authentication.getName();
-        User user = userService.getUserByEmail(email);
-        return ResponseEntity.ok(notificationService.getUserNotifications(user.getId()));
+    public ResponseEntity<List<Notification>> getUserNotifications(AuthenticatedUser caller) {
+        return ResponseEntity.ok(notificationService.getUserNotifications(caller.getUserId()));
+    }
+
+    // Single-use ticket for opening the notification stream, valid for a few seconds
+    @PostMapping("/stream-ticket")
+    public ResponseEntity<Map<String, String>> streamTicket(AuthenticatedUser caller) {
+        return ResponseEntity.ok(Map.of("ticket", streamTicketStore.issue(caller)));
+    }
+
+    // Push channel for new notifications (text/event-stream), opened with
+    // ?ticket=<stream ticket>. A ticket is spent on connect, so clients reconnect
+    // with a new one and pass the last id they saw as lastEventId (or the
+    // Last-Event-ID header) to have missed notifications replayed.
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(AuthenticatedUser caller,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+            @RequestParam(required = false) String lastEventId) {
+        return notificationStreamRegistry.subscribe(caller.getUserId(),
+                lastEventIdHeader != null ? lastEventIdHeader : lastEventId);
+    }
+
+    @GetMapping("/feed")
+    public ResponseEntity<NotificationFeedDTO> getFeed(AuthenticatedUser caller,
+            @RequestParam(required = false) String before,
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "false") boolean unreadOnly,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(notificationService.getFeed(caller.getUserId(), before, since, unreadOnly, limit));
     }
 
     @GetMapping("/unread-count")
-    public ResponseEntity<Long> getUnreadCount(Authentication authentication) {
-        String email = authentication.getName();
-        User user = userService.getUserByEmail(email);
-        return ResponseEntity.ok(notificationService.getUnreadCount(user.getId()));
+    public ResponseEntity<Long> getUnreadCount(AuthenticatedUser caller) {
+        return ResponseEntity.ok(notificationService.getUnreadCount(caller.getUserId()));
     }
 
     @PutMapping("/{id}/read")
@@ -41,10 +71,7 @@ public class NotificationController {
     }
 
     @PutMapping("/read-all")
-    public ResponseEntity<Void> markAllAsRead(Authentication authentication) {
-        String email = authentication.getName();
-        User user = userService.getUserByEmail(email);
-        notificationService.markAllAsRead(user.getId());
-        return ResponseEntity.ok().build();
+    public ResponseEntity<Long> markAllAsRead(AuthenticatedUser caller) {
+        return ResponseEntity.ok(notificationService.markAllAsRead(caller.getUserId()));
     }
 }
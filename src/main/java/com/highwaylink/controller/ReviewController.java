@@ -5,8 +5,8 @@ import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -15,9 +15,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.highwaylink.config.AuthenticatedUser;
 import com.highwaylink.model.Review;
 import com.highwaylink.service.ReviewService;
-import com.highwaylink.service.UserService;
+
+import reactor.core.publisher.Flux;
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -29,16 +31,12 @@ public class ReviewController {
     @Autowired
     private ReviewService reviewService;
 
-    @Autowired
-    private UserService userService;
-
     @PostMapping
     public ResponseEntity<Review> submitReview(
             @RequestBody ReviewRequest request,
-            Authentication authentication) {
+            AuthenticatedUser caller) {
 
-        String userEmail = authentication.getName();
-        String userId = userService.getUserByEmail(userEmail).getId();
+        String userId = caller.getUserId();
 
         logger.info("POST /api/reviews - user: {}", userId);
 
@@ -52,11 +50,12 @@ public class ReviewController {
         return ResponseEntity.ok(review);
     }
 
-    @GetMapping("/driver/{driverId}")
-    public ResponseEntity<List<Review>> getReviewsForDriver(@PathVariable String driverId) {
+    // A JSON array by default; one review per line with Accept: application/x-ndjson
+    @GetMapping(value = "/driver/{driverId}", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<Review> getReviewsForDriver(@PathVariable String driverId) {
         logger.info("GET /api/reviews/driver/{} - Fetching reviews", driverId);
-        List<Review> reviews = reviewService.getReviewsForDriver(driverId);
-        return ResponseEntity.ok(reviews);
+        return reviewService.getReviewsForDriver(driverId);
     }
 
     @GetMapping("/ride/{rideId}")
@@ -1,16 +1,19 @@
 // RideController.java - Complete with all endpoints properly defined
 package com.highwaylink.controller;
 
+import java.io.IOException;
 import java.util.List;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,17 +25,24 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.highwaylink.DTO.BookingRequestDTO;
 import com.highwaylink.DTO.MyRidesResponseDTO;
 import com.highwaylink.DTO.RideCreateRequestDTO;
 import com.highwaylink.DTO.RideDTO;
-import com.highwaylink.config.JwtUtil;
+import com.highwaylink.DTO.RidePageDTO;
+import com.highwaylink.config.AuthenticatedUser;
 import com.highwaylink.model.Ride;
+import com.highwaylink.service.PublicRidesSnapshot;
+import com.highwaylink.service.ReactiveRideReadService;
 import com.highwaylink.service.RideService;
-import com.highwaylink.service.UserService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/rides")
@@ -45,74 +55,135 @@ public class RideController {
     private RideService rideService;
 
     @Autowired
-    private UserService userService;
+    private ReactiveRideReadService rideReadService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private PublicRidesSnapshot publicRidesSnapshot;
+
+    // Cached responses must be revalidated (If-None-Match) and differ per caller
+    private static ResponseEntity.BodyBuilder conditional(String etag) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.AUTHORIZATION);
+    }
 
-    private String extractUserIdFromToken(String authHeader) {
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
-            return null;
+    // For handlers that finish asynchronously and can't use WebRequest.checkNotModified
+    private static boolean matchesIfNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
         }
-        String token = authHeader.substring(7);
-        return jwtUtil.extractUserId(token);
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    @GetMapping("/public")
-    public ResponseEntity<List<RideDTO>> getPublicRides(
+    // The reads below are non-blocking (see ReactiveRideReadService): a JSON array
+    // by default, one ride per line with Accept: application/x-ndjson
+    @GetMapping(value = "/public", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<RideDTO> getPublicRides(
             @RequestParam(required = false) String origin,
             @RequestParam(required = false) String destination,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+            @Nullable AuthenticatedUser caller,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
 
         logger.info("GET /api/rides/public - origin: {}, destination: {}", origin, destination);
 
-        String userId = extractUserIdFromToken(authHeader);
-        List<RideDTO> rides = rideService.getPublicRides(origin, destination, userId);
+        // Anonymous callers all get the same list: serve the pre-published copy
+        // (a JSON array, so not to streaming clients)
+        if (caller == null && !acceptsNdjson(request)) {
+            PublicRidesSnapshot.Snapshot snapshot = publicRidesSnapshot.find(origin, destination);
+            if (snapshot != null) {
+                publicRidesSnapshot.serve(snapshot, request, response);
+                return null;
+            }
+        }
 
-        return ResponseEntity.ok(rides);
+        return rideReadService.getPublicRides(origin, destination,
+                caller != null ? caller.getUserId() : null);
+    }
+
+    private static boolean acceptsNdjson(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(MediaType.APPLICATION_NDJSON_VALUE);
     }
 
     @GetMapping
-    public ResponseEntity<Page<RideDTO>> getAllRides(
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        logger.info("GET /api/rides - Fetching all rides - page: {}, size: {}", page, size);
-        Pageable pageable = PageRequest.of(page, size);
-        Page<RideDTO> rides = rideService.getAllRides(pageable);
-        return ResponseEntity.ok(rides);
+    public ResponseEntity<RidePageDTO> getAllRides(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            @Nullable AuthenticatedUser caller,
+            WebRequest request) {
+        logger.info("GET /api/rides - Fetching all rides - cursor: {}, size: {}", cursor, size);
+        String viewerId = caller != null ? caller.getUserId() : null;
+        boolean viewerIsAdmin = caller != null && caller.isAdmin();
+        String etag = rideService.allRidesEtag(cursor, size, includeTotal, viewerId, viewerIsAdmin);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        RidePageDTO rides = rideService.getAllRides(cursor, size, includeTotal, viewerId, viewerIsAdmin);
+        return conditional(etag).body(rides);
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<RideDTO> getRideById(@PathVariable String id) {
+    public Mono<ResponseEntity<RideDTO>> getRideById(
+            @PathVariable String id,
+            @Nullable AuthenticatedUser caller,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         logger.info("GET /api/rides/{} - Fetching ride", id);
-        RideDTO ride = rideService.getRideById(id);
-        return ResponseEntity.ok(ride);
+        String viewerId = caller != null ? caller.getUserId() : null;
+        boolean viewerIsAdmin = caller != null && caller.isAdmin();
+        return rideReadService.rideEtag(id, viewerId, viewerIsAdmin)
+                .flatMap(etag -> matchesIfNoneMatch(ifNoneMatch, etag)
+                        ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                                .eTag(etag)
+                                .cacheControl(CacheControl.noCache().cachePrivate())
+                                .varyBy(HttpHeaders.AUTHORIZATION)
+                                .<RideDTO>build())
+                        : rideReadService.getRideById(id, viewerId, viewerIsAdmin)
+                                .map(ride -> conditional(etag).body(ride)));
     }
 
-    @GetMapping("/search")
-    public ResponseEntity<List<RideDTO>> searchRides(
+    @GetMapping(value = "/search", produces = { MediaType.APPLICATION_JSON_VALUE,
+            MediaType.APPLICATION_NDJSON_VALUE })
+    public Flux<RideDTO> searchRides(
             @RequestParam(required = false) String origin,
             @RequestParam(required = false) String destination,
             @RequestParam(required = false) String date,
             @RequestParam(required = false) String timeFrom,
             @RequestParam(required = false) String timeTo,
             @RequestParam(required = false) String vehicleType,
-            @RequestHeader(value = "Authorization", required = false) String authHeader) {
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @Nullable AuthenticatedUser caller) {
 
         logger.info(
-                "GET /api/rides/search - origin: {}, destination: {}, date: {}, timeFrom: {}, timeTo: {}, vehicleType: {}",
-                origin, destination, date, timeFrom, timeTo, vehicleType);
-
-        String userId = extractUserIdFromToken(authHeader);
-        List<RideDTO> rides = rideService.searchRides(origin, destination, date, timeFrom, timeTo, vehicleType, userId);
+                "GET /api/rides/search - origin: {}, destination: {}, date: {}, timeFrom: {}, timeTo: {}, vehicleType: {}, page: {}, size: {}",
+                origin, destination, date, timeFrom, timeTo, vehicleType, page, size);
 
-        return ResponseEntity.ok(rides);
+        String userId = caller != null ? caller.getUserId() : null;
+        Pageable pageable = RideService.pageRequest(page, size);
+        return rideReadService.searchRides(origin, destination, date, timeFrom, timeTo, vehicleType, userId,
+                pageable);
     }
 
     @GetMapping("/owner/{ownerId}")
-    public ResponseEntity<List<RideDTO>> getRidesByOwnerId(@PathVariable String ownerId) {
+    public ResponseEntity<List<RideDTO>> getRidesByOwnerId(
+            @PathVariable String ownerId,
+            @Nullable AuthenticatedUser caller) {
         logger.info("GET /api/rides/owner/{} - Fetching rides", ownerId);
-        List<RideDTO> rides = rideService.getRidesByOwnerId(ownerId);
+        List<RideDTO> rides = rideService.getRidesByOwnerId(ownerId,
+                caller != null ? caller.getUserId() : null, caller != null && caller.isAdmin());
         return ResponseEntity.ok(rides);
     }
 
@@ -120,40 +191,47 @@ public class RideController {
     public ResponseEntity<MyRidesResponseDTO> getMyRides(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        String userId = userService.getUserByEmail(userEmail).getId();
+            AuthenticatedUser caller,
+            WebRequest request) {
+        String userId = caller.getUserId();
 
         logger.info("GET /api/rides/my-rides - user: {}, page: {}, size: {}", userId, page, size);
 
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = RideService.pageRequest(page, size);
+        String etag = rideService.myRidesEtag(userId, pageable);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         MyRidesResponseDTO rides = rideService.getMyRides(userId, pageable);
-        return ResponseEntity.ok(rides);
+        return conditional(etag).body(rides);
     }
 
     @GetMapping("/my-offers")
-    public ResponseEntity<Page<RideDTO>> getMyOffers(
-            @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<RidePageDTO> getMyOffers(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int size,
-            Authentication authentication) {
-        String userEmail = authentication.getName();
-        String userId = userService.getUserByEmail(userEmail).getId();
+            @RequestParam(defaultValue = "false") boolean includeTotal,
+            AuthenticatedUser caller,
+            WebRequest request) {
+        String userId = caller.getUserId();
 
-        logger.info("GET /api/rides/my-offers - user: {}, page: {}, size: {}", userId, page, size);
+        logger.info("GET /api/rides/my-offers - user: {}, cursor: {}, size: {}", userId, cursor, size);
 
-        Pageable pageable = PageRequest.of(page, size);
-        Page<RideDTO> offers = rideService.getMyOffers(userId, pageable);
-        return ResponseEntity.ok(offers);
+        String etag = rideService.myOffersEtag(userId, cursor, size, includeTotal);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        RidePageDTO offers = rideService.getMyOffers(userId, cursor, size, includeTotal);
+        return conditional(etag).body(offers);
     }
 
     @PostMapping("/{id}/book")
     public ResponseEntity<RideDTO> bookRide(
             @PathVariable String id,
             @RequestBody(required = false) BookingRequestDTO bookingRequest,
-            Authentication authentication) {
+            AuthenticatedUser caller) {
 
-        String userEmail = authentication.getName();
-        String userId = userService.getUserByEmail(userEmail).getId();
+        String userId = caller.getUserId();
 
         int seatsRequested = (bookingRequest != null && bookingRequest.getSeatsRequested() > 0)
                 ? bookingRequest.getSeatsRequested()
@@ -161,17 +239,16 @@ public class RideController {
 
         logger.info("POST /api/rides/{}/book - user: {}, seats: {}", id, userId, seatsRequested);
 
-        RideDTO ride = rideService.bookRide(id, userId, seatsRequested);
+        RideDTO ride = rideService.bookRide(id, userId, caller.getName(), seatsRequested);
         return ResponseEntity.ok(ride);
     }
 
     @DeleteMapping("/{id}/cancel-request")
     public ResponseEntity<RideDTO> cancelBookingRequest(
             @PathVariable String id,
-            Authentication authentication) {
+            AuthenticatedUser caller) {
 
-        String userEmail = authentication.getName();
-        String userId = userService.getUserByEmail(userEmail).getId();
+        String userId = caller.getUserId();
 
         logger.info("DELETE /api/rides/{}/cancel-request - user: {}", id, userId);
 
@@ -183,10 +260,9 @@ public class RideController {
     public ResponseEntity<RideDTO> acceptBookingRequest(
             @PathVariable String id,
             @PathVariable String passengerId,
-            Authentication authentication) {
+            AuthenticatedUser caller) {
 
-        String userEmail = authentication.getName();
-        String ownerId = userService.getUserByEmail(userEmail).getId();
+        String ownerId = caller.getUserId();
 
         logger.info("POST /api/rides/{}/accept/{} - owner: {}", id, passengerId, ownerId);
 
@@ -198,10 +274,9 @@ public class RideController {
     public ResponseEntity<RideDTO> rejectBookingRequest(
             @PathVariable String id,
             @PathVariable String passengerId,
-            Authentication authentication) {
+            AuthenticatedUser caller) {
 
-        String userEmail = authentication.getName();
-        String ownerId = userService.getUserByEmail(userEmail).getId();
+        String ownerId = caller.getUserId();
 
         logger.info("POST /api/rides/{}/reject/{} - owner: {}", id, passengerId, ownerId);
 
@@ -213,10 +288,9 @@ public class RideController {
     public ResponseEntity<RideDTO> removePassenger(
             @PathVariable String id,
             @PathVariable String passengerId,
-            Authentication authentication) {
+            AuthenticatedUser caller) {
 
-        String userEmail = authentication.getName();
-        String ownerId = userService.getUserByEmail(userEmail).getId();
+        String ownerId = caller.getUserId();
 
         logger.info("DELETE /api/rides/{}/remove-passenger/{} - owner: {}", id, passengerId, ownerId);
 
@@ -227,12 +301,11 @@ public class RideController {
     @PostMapping
     public ResponseEntity<RideDTO> createRide(
             @Valid @RequestBody RideCreateRequestDTO request,
-            Authentication authentication) {
+            AuthenticatedUser caller) {
 
-        String userEmail = authentication.getName();
-        logger.info("POST /api/rides - Creating ride for user: {}", userEmail);
+        logger.info("POST /api/rides - Creating ride for user: {}", caller.getUserId());
 
-        RideDTO ride = rideService.createRide(request, userEmail);
+        RideDTO ride = rideService.createRide(request, caller.getUserId(), caller.getName());
         return ResponseEntity.ok(ride);
     }
 
@@ -240,24 +313,24 @@ public class RideController {
     public ResponseEntity<RideDTO> updateRide(
             @PathVariable String id,
             @RequestBody Ride ride,
-            Authentication authentication) {
+            @RequestParam(defaultValue = "false") boolean series,
+            AuthenticatedUser caller) {
 
-        String userEmail = authentication.getName();
-        logger.info("PUT /api/rides/{} - user: {}", id, userEmail);
+        logger.info("PUT /api/rides/{} - user: {}, series: {}", id, caller.getUserId(), series);
 
-        RideDTO updated = rideService.updateRide(id, ride, userEmail);
+        // series=true also applies the edit to the future instances of a recurring ride
+        RideDTO updated = rideService.updateRide(id, ride, caller.getUserId(), caller.isAdmin(), series);
         return ResponseEntity.ok(updated);
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteRide(
             @PathVariable String id,
-            Authentication authentication) {
+            AuthenticatedUser caller) {
 
-        String userEmail = authentication.getName();
-        logger.info("DELETE /api/rides/{} - user: {}", id, userEmail);
+        logger.info("DELETE /api/rides/{} - user: {}", id, caller.getUserId());
 
-        rideService.deleteRide(id, userEmail);
+        rideService.deleteRide(id, caller.getUserId());
         return ResponseEntity.noContent().build();
     }
 
@@ -266,10 +339,9 @@ public class RideController {
             @PathVariable String id,
             @PathVariable String passengerId,
             @RequestParam Double amount,
-            Authentication authentication) {
+            AuthenticatedUser caller) {
 
-        String userEmail = authentication.getName();
-        String ownerId = userService.getUserByEmail(userEmail).getId();
+        String ownerId = caller.getUserId();
 
         logger.info("POST /api/rides/{}/mark-payment-collected/{} - owner: {}, amount: {}", id, passengerId, ownerId,
                 amount);
@@ -279,9 +351,8 @@ public class RideController {
     }
 
     @GetMapping("/earnings/today")
-    public ResponseEntity<java.util.Map<String, Object>> getTodayEarnings(Authentication authentication) {
-        String userEmail = authentication.getName();
-        String ownerId = userService.getUserByEmail(userEmail).getId();
+    public ResponseEntity<java.util.Map<String, Object>> getTodayEarnings(AuthenticatedUser caller) {
+        String ownerId = caller.getUserId();
 
         logger.info("GET /api/rides/earnings/today - owner: {}", ownerId);
 
@@ -290,9 +361,8 @@ public class RideController {
     }
 
     @GetMapping("/earnings/total")
-    public ResponseEntity<java.util.Map<String, Object>> getTotalEarnings(Authentication authentication) {
-        String userEmail = authentication.getName();
-        String ownerId = userService.getUserByEmail(userEmail).getId();
+    public ResponseEntity<java.util.Map<String, Object>> getTotalEarnings(AuthenticatedUser caller) {
+        String ownerId = caller.getUserId();
 
         logger.info("GET /api/rides/earnings/total - owner: {}", ownerId);
 
@@ -300,13 +370,27 @@ public class RideController {
         return ResponseEntity.ok(earnings);
     }
 
+    @GetMapping("/earnings")
+    public ResponseEntity<java.util.Map<String, Object>> getEarnings(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "day") String granularity,
+            AuthenticatedUser caller) {
+        String ownerId = caller.getUserId();
+
+        logger.info("GET /api/rides/earnings - owner: {}, from: {}, to: {}, granularity: {}", ownerId, from, to,
+                granularity);
+
+        java.util.Map<String, Object> earnings = rideService.getEarnings(ownerId, from, to, granularity);
+        return ResponseEntity.ok(earnings);
+    }
+
     @PostMapping("/{id}/start")
     public ResponseEntity<RideDTO> startRide(
             @PathVariable String id,
-            Authentication authentication) {
+            AuthenticatedUser caller) {
 
-        String userEmail = authentication.getName();
-        String ownerId = userService.getUserByEmail(userEmail).getId();
+        String ownerId = caller.getUserId();
 
         logger.info("POST /api/rides/{}/start - owner: {}", id, ownerId);
 
@@ -317,10 +401,9 @@ public class RideController {
     @PostMapping("/{id}/end")
     public ResponseEntity<RideDTO> endRide(
             @PathVariable String id,
-            Authentication authentication) {
+            AuthenticatedUser caller) {
 
-        String userEmail = authentication.getName();
-        String ownerId = userService.getUserByEmail(userEmail).getId();
+        String ownerId = caller.getUserId();
 
         logger.info("POST /api/rides/{}/end - owner: {}", id, ownerId);
 
@@ -331,14 +414,13 @@ public class RideController {
     @PutMapping("/{id}/cancel")
     public ResponseEntity<RideDTO> cancelRide(
             @PathVariable String id,
-            Authentication authentication) {
+            AuthenticatedUser caller) {
 
-        String userEmail = authentication.getName();
-        String ownerId = userService.getUserByEmail(userEmail).getId();
+        String ownerId = caller.getUserId();
 
         logger.info("PUT /api/rides/{}/cancel - owner: {}", id, ownerId);
 
-        RideDTO ride = rideService.cancelRide(id, ownerId);
+        RideDTO ride = rideService.cancelRide(id, ownerId, caller.isAdmin());
         return ResponseEntity.ok(ride);
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.highwaylink.job;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.highwaylink.model.Booking;
+
+// Moves bookings that are still embedded in ride documents (rides.bookings) into
+// the bookings collection, then unsets the array. Bookings are upserted on
+// (rideId, passengerId, status, requestedAt), so a batch interrupted between the
+// copy and the unset is safe to run again.
+@Component
+@Order(1)
+public class BookingMigrationJob implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingMigrationJob.class);
+
+    private static final String RIDES = "rides";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${highwaylink.bookings.migration.batch-size:200}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            long migrated = migrate();
+            if (migrated > 0) {
+                logger.info("Moved {} embedded bookings into the bookings collection", migrated);
+            }
+        } catch (Exception e) {
+            logger.error("Booking migration failed", e);
+        }
+    }
+
+    public long migrate() {
+        long total = 0;
+        while (true) {
+            Query query = new Query(Criteria.where("bookings").exists(true)).limit(batchSize);
+            query.fields().include("bookings");
+            List<Document> rides = mongoTemplate.find(query, Document.class, RIDES);
+            if (rides.isEmpty()) {
+                return total;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+            List<Object> rideIds = new ArrayList<>();
+            int pending = 0;
+            for (Document ride : rides) {
+                Object rawId = ride.get("_id");
+                rideIds.add(rawId);
+                String rideId = rawId instanceof ObjectId ? ((ObjectId) rawId).toHexString() : String.valueOf(rawId);
+
+                List<Document> embedded = ride.getList("bookings", Document.class);
+                if (embedded == null) continue;
+                for (Document booking : embedded) {
+                    Document copy = new Document(booking);
+                    copy.remove("_id");
+                    copy.remove("_class");
+                    copy.put("rideId", rideId);
+                    Query key = Query.query(Criteria.where("rideId").is(rideId)
+                            .and("passengerId").is(copy.get("passengerId"))
+                            .and("status").is(copy.get("status"))
+                            .and("requestedAt").is(copy.get("requestedAt")));
+                    bulk.upsert(key, Update.fromDocument(new Document("$setOnInsert", copy)));
+                    pending++;
+                }
+            }
+            if (pending > 0) {
+                total += bulk.execute().getUpserts().size();
+            }
+
+            mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(rideIds)),
+                    new Update().unset("bookings"), RIDES);
+
+            if (rides.size() < batchSize) {
+                return total;
+            }
+        }
+    }
+}
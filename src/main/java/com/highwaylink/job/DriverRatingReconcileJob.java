@@ -0,0 +1,174 @@
+package com.highwaylink.job;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.highwaylink.model.Review;
+import com.highwaylink.model.User;
+import com.highwaylink.repository.UserRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Rebuilds every driver's rating aggregate (ratingSum, ratingCount, histogram)
+// from the reviews collection and rewrites the ones that drifted, e.g. through a
+// lost $inc or a review edited directly in the database. Also seeds the aggregate
+// for drivers reviewed before it existed. Corrections are counted in
+// highwaylink.ratings.reconciled.
+//
+// The full pass only finds candidates. Each one is then re-checked in an order
+// that can't undo a concurrent review: read the stored aggregate, then rebuild
+// that driver's totals, then replace them only if ratingCount is still the value
+// read. Drivers reviewed within settle-ms are left for the next run, since the
+// review may be saved while its $inc is still on the way.
+@Component
+public class DriverRatingReconcileJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(DriverRatingReconcileJob.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${highwaylink.ratings.reconcile-settle-ms:60000}")
+    private long settleMs;
+
+    @Scheduled(fixedDelayString = "${highwaylink.ratings.reconcile-interval-ms:21600000}",
+            initialDelayString = "${highwaylink.ratings.reconcile-initial-delay-ms:60000}")
+    public void reconcile() {
+        try {
+            long corrected = rebuild();
+            if (corrected > 0) {
+                logger.info("Reconciled rating aggregates of {} drivers", corrected);
+            }
+        } catch (Exception e) {
+            logger.error("Driver rating reconciliation failed", e);
+        }
+    }
+
+    public long rebuild() {
+        Map<String, Aggregate> expected = aggregateReviews(null);
+        Set<String> drifted = new HashSet<>();
+
+        // Drivers that currently carry an aggregate
+        Query rated = Query.query(Criteria.where("ratingCount").gt(0));
+        rated.fields().include("ratingSum").include("ratingCount").include("ratingHistogram");
+        try (Stream<User> stream = mongoTemplate.stream(rated, User.class)) {
+            Iterator<User> users = stream.iterator();
+            while (users.hasNext()) {
+                User user = users.next();
+                Aggregate actual = expected.remove(user.getId());
+                if (actual == null || actual.differsFrom(user)) {
+                    drifted.add(user.getId());
+                }
+            }
+        }
+        // Reviewed drivers without any stored aggregate
+        drifted.addAll(expected.keySet());
+
+        long corrected = 0;
+        for (String driverId : drifted) {
+            if (correct(driverId)) {
+                corrected++;
+            }
+        }
+
+        meterRegistry.counter("highwaylink.ratings.reconciled").increment(corrected);
+        return corrected;
+    }
+
+    private boolean correct(String driverId) {
+        Query byId = Query.query(Criteria.where("_id").is(driverId));
+        byId.fields().include("ratingSum").include("ratingCount").include("ratingHistogram");
+        User user = mongoTemplate.findOne(byId, User.class);
+        if (user == null) {
+            return false;
+        }
+
+        Aggregate actual = aggregateReviews(driverId).getOrDefault(driverId, new Aggregate());
+        if (!actual.differsFrom(user)) {
+            return false;
+        }
+        if (actual.latestReview != null && actual.latestReview.getTime() > System.currentTimeMillis() - settleMs) {
+            logger.debug("Driver {} was reviewed just now, reconciling next run", driverId);
+            return false;
+        }
+        if (!userRepository.replaceRatingAggregate(driverId, user.getRatingCount(), actual.sum, actual.count,
+                actual.histogram)) {
+            logger.debug("Driver {} was rated while reconciling, skipped", driverId);
+            return false;
+        }
+        return true;
+    }
+
+    // One row per (driver, star value); at most five per driver. All drivers, or
+    // just the one given.
+    private Map<String, Aggregate> aggregateReviews(String driverId) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        if (driverId != null) {
+            stages.add(Aggregation.match(Criteria.where("driverId").is(driverId)));
+        }
+        stages.add(Aggregation.group("driverId", "rating").count().as("n").max("createdAt").as("latest"));
+
+        Map<String, Aggregate> byDriver = new HashMap<>();
+        for (Document row : mongoTemplate.aggregate(Aggregation.newAggregation(stages), Review.class,
+                Document.class)) {
+            Document key = row.get("_id", Document.class);
+            String driver = key.getString("driverId");
+            Number rating = key.get("rating", Number.class);
+            if (driver == null || rating == null) {
+                continue;
+            }
+            long n = row.get("n", Number.class).longValue();
+
+            Aggregate aggregate = byDriver.computeIfAbsent(driver, id -> new Aggregate());
+            aggregate.sum += rating.longValue() * n;
+            aggregate.count += n;
+            aggregate.histogram.merge(String.valueOf(rating.intValue()), n, Long::sum);
+            Date latest = row.getDate("latest");
+            if (latest != null && (aggregate.latestReview == null || latest.after(aggregate.latestReview))) {
+                aggregate.latestReview = latest;
+            }
+        }
+        return byDriver;
+    }
+
+    private static class Aggregate {
+        long sum;
+        long count;
+        Map<String, Long> histogram = new HashMap<>();
+        Date latestReview;
+
+        boolean differsFrom(User user) {
+            Map<String, Long> stored = user.getRatingHistogram() != null ? user.getRatingHistogram() : Map.of();
+            return sum != user.getRatingSum()
+                    || count != user.getRatingCount()
+                    || !Objects.equals(histogram, stored);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.highwaylink.job;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.highwaylink.model.Booking;
+import com.highwaylink.model.EarningsLedgerEntry;
+import com.highwaylink.model.Ride;
+import com.highwaylink.service.EarningsService;
+
+// Adds payments collected before the earnings ledger existed to the ledger and the
+// daily rollups. Runs on startup after the booking migration; bookings that
+// already have a ledger entry are skipped, so it is safe to leave enabled, but it
+// can be switched off once it has run.
+@Component
+@Order(2)
+public class EarningsLedgerBackfillJob implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(EarningsLedgerBackfillJob.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private EarningsService earningsService;
+
+    @Value("${highwaylink.earnings.ledger-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${highwaylink.earnings.ledger-backfill.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long added = backfill();
+            if (added > 0) {
+                logger.info("Added {} collected payments to the earnings ledger", added);
+            }
+        } catch (Exception e) {
+            logger.error("Earnings ledger backfill failed", e);
+        }
+    }
+
+    public long backfill() {
+        Query collected = Query.query(Criteria.where("paymentStatus").is("COMPLETED")
+                .and("paymentCollectedAt").ne(null)
+                .and("amountPaid").ne(null));
+
+        long added = 0;
+        List<Booking> batch = new ArrayList<>(batchSize);
+        try (Stream<Booking> bookings = mongoTemplate.stream(collected, Booking.class)) {
+            Iterator<Booking> it = bookings.iterator();
+            while (it.hasNext()) {
+                batch.add(it.next());
+                if (batch.size() == batchSize || !it.hasNext()) {
+                    added += record(batch);
+                    batch.clear();
+                }
+            }
+        }
+        return added;
+    }
+
+    private long record(List<Booking> batch) {
+        Set<String> bookingIds = batch.stream().map(Booking::getId).collect(Collectors.toSet());
+        Query existing = Query.query(Criteria.where("_id").in(bookingIds));
+        existing.fields().include("_id");
+        Set<String> recorded = new HashSet<>();
+        mongoTemplate.find(existing, EarningsLedgerEntry.class).forEach(entry -> recorded.add(entry.getId()));
+
+        List<Booking> missing = batch.stream().filter(b -> !recorded.contains(b.getId())).collect(Collectors.toList());
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> rideIds = missing.stream().map(Booking::getRideId).collect(Collectors.toSet());
+        Query rides = Query.query(Criteria.where("_id").in(rideIds));
+        rides.fields().include("ownerId");
+        Map<String, String> ownerByRide = new HashMap<>();
+        mongoTemplate.find(rides, Ride.class).forEach(ride -> ownerByRide.put(ride.getId(), ride.getOwnerId()));
+
+        long added = 0;
+        for (Booking booking : missing) {
+            String ownerId = ownerByRide.get(booking.getRideId());
+            if (ownerId != null && earningsService.recordIfAbsent(booking, ownerId)) {
+                added++;
+            }
+        }
+        return added;
+    }
+}
@@ -0,0 +1,253 @@
+package com.highwaylink.job;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.highwaylink.model.Notification;
+import com.highwaylink.model.NotificationArchive;
+import com.highwaylink.service.UnreadCounterService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Notification retention:
+//  - read notifications expire through a TTL index on readAt after read-days
+//    (created/updated on startup);
+//  - read notifications from before readAt existed are deleted by this job once
+//    createdAt is older than read-days;
+//  - unread notifications older than unread-days are folded into the user's
+//    NotificationArchive summary and deleted.
+// The job works in batches of batch-size with a pause between batches and at most
+// max-batches per run, so it never bursts IOPS; the pauses hold one of the
+// scheduler's threads (spring.task.scheduling.pool.size), not all of them.
+// Documents and BSON bytes it removes are counted in
+// highwaylink.notifications.retention.expired and .bytes_reclaimed (tag "tier" =
+// read/unread); TTL deletions are done by the server and show up in its own metrics.
+@Component
+public class NotificationRetentionJob implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetentionJob.class);
+
+    private static final String TTL_INDEX = "read_ttl_idx";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${highwaylink.notifications.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${highwaylink.notifications.retention.read-days:30}")
+    private int readDays;
+
+    @Value("${highwaylink.notifications.retention.unread-days:90}")
+    private int unreadDays;
+
+    @Value("${highwaylink.notifications.retention.batch-size:500}")
+    private int batchSize;
+
+    @Value("${highwaylink.notifications.retention.max-batches:20}")
+    private int maxBatches;
+
+    @Value("${highwaylink.notifications.retention.pause-ms:200}")
+    private long pauseMs;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            ensureTtlIndex();
+        } catch (Exception e) {
+            logger.error("Could not set up the notification TTL index", e);
+        }
+    }
+
+    private void ensureTtlIndex() {
+        Duration ttl = Duration.ofDays(readDays);
+        try {
+            mongoTemplate.indexOps(Notification.class)
+                    .createIndex(new Index().on("readAt", Sort.Direction.ASC).named(TTL_INDEX).expire(ttl));
+        } catch (DataAccessException e) {
+            // Exists with a different expiry: change it in place
+            mongoTemplate.executeCommand(new Document("collMod", "notifications")
+                    .append("index", new Document("name", TTL_INDEX).append("expireAfterSeconds", ttl.toSeconds())));
+            logger.info("Notification TTL changed to {} days", readDays);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${highwaylink.notifications.retention.interval-ms:3600000}",
+            initialDelayString = "${highwaylink.notifications.retention.initial-delay-ms:300000}")
+    public void enforce() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long legacy = expireLegacyRead();
+            long archived = archiveUnread();
+            if (legacy > 0 || archived > 0) {
+                logger.info("Notification retention removed {} read and archived {} unread notifications", legacy,
+                        archived);
+            }
+        } catch (Exception e) {
+            logger.error("Notification retention failed", e);
+        }
+    }
+
+    // Read before readAt was recorded, so the TTL index never sees them
+    private long expireLegacyRead() throws InterruptedException {
+        Criteria expired = Criteria.where("isRead").is(true)
+                .and("readAt").exists(false)
+                .and("createdAt").lt(daysAgo(readDays));
+
+        long total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            List<Document> batch = nextBatch(expired);
+            if (batch.isEmpty()) {
+                break;
+            }
+            total += delete(batch, true, "read").size();
+            if (batch.size() < batchSize) {
+                break;
+            }
+            Thread.sleep(pauseMs);
+        }
+        return total;
+    }
+
+    private long archiveUnread() throws InterruptedException {
+        Criteria stale = Criteria.where("isRead").is(false).and("createdAt").lt(daysAgo(unreadDays));
+
+        long total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            List<Document> batch = nextBatch(stale);
+            if (batch.isEmpty()) {
+                break;
+            }
+            // Only what this run actually removed is archived and taken off the counters
+            List<Document> deleted = delete(batch, false, "unread");
+            archive(deleted);
+            total += deleted.size();
+
+            Map<String, Long> perUser = new HashMap<>();
+            deleted.forEach(doc -> perUser.merge(doc.getString("userId"), 1L, Long::sum));
+            perUser.forEach((userId, n) -> unreadCounterService.adjust(userId, -n));
+
+            if (batch.size() < batchSize) {
+                break;
+            }
+            Thread.sleep(pauseMs);
+        }
+        return total;
+    }
+
+    // _id, userId, type, createdAt and the BSON size of each matching document
+    private List<Document> nextBatch(Criteria criteria) {
+        AggregationOperation withSize = context -> new Document("$project", new Document("userId", 1)
+                .append("type", 1)
+                .append("createdAt", 1)
+                .append("bytes", new Document("$bsonSize", "$$ROOT")));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(criteria),
+                Aggregation.limit(batchSize),
+                withSize);
+        return mongoTemplate.aggregate(aggregation, Notification.class, Document.class).getMappedResults();
+    }
+
+    // Returns the documents of the batch that were removed
+    private List<Document> delete(List<Document> batch, boolean isRead, String tier) {
+        List<ObjectId> ids = new ArrayList<>(batch.size());
+        for (Document doc : batch) {
+            ids.add(doc.getObjectId("_id"));
+        }
+        // isRead guard: a notification read since the batch was fetched is left to the TTL
+        mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids).and("isRead").is(isRead)), Notification.class);
+
+        // Whatever the guard kept is still there
+        Query remaining = Query.query(Criteria.where("_id").in(ids));
+        remaining.fields().include("_id");
+        Set<ObjectId> kept = new HashSet<>();
+        for (Document doc : mongoTemplate.find(remaining, Document.class,
+                mongoTemplate.getCollectionName(Notification.class))) {
+            kept.add(doc.getObjectId("_id"));
+        }
+
+        List<Document> deleted = new ArrayList<>(batch.size());
+        long bytes = 0;
+        for (Document doc : batch) {
+            if (kept.contains(doc.getObjectId("_id"))) {
+                continue;
+            }
+            deleted.add(doc);
+            Number size = doc.get("bytes", Number.class);
+            bytes += size != null ? size.longValue() : 0;
+        }
+
+        meterRegistry.counter("highwaylink.notifications.retention.expired", "tier", tier).increment(deleted.size());
+        meterRegistry.counter("highwaylink.notifications.retention.bytes_reclaimed", "tier", tier).increment(bytes);
+        return deleted;
+    }
+
+    private void archive(List<Document> batch) {
+        Map<String, List<Document>> byUser = new HashMap<>();
+        batch.forEach(doc -> byUser.computeIfAbsent(doc.getString("userId"), id -> new ArrayList<>()).add(doc));
+
+        Date now = new Date();
+        byUser.forEach((userId, docs) -> {
+            Update update = new Update().inc("archivedCount", docs.size()).set("updatedAt", now);
+            Date oldest = null;
+            Date newest = null;
+            Map<String, Long> byType = new HashMap<>();
+            for (Document doc : docs) {
+                String type = doc.getString("type") != null ? doc.getString("type") : "INFO";
+                byType.merge(type, 1L, Long::sum);
+                Date createdAt = doc.getDate("createdAt");
+                if (createdAt != null) {
+                    oldest = oldest == null || createdAt.before(oldest) ? createdAt : oldest;
+                    newest = newest == null || createdAt.after(newest) ? createdAt : newest;
+                }
+            }
+            byType.forEach((type, n) -> update.inc("countsByType." + type, n));
+            if (oldest != null) {
+                update.min("oldestCreatedAt", oldest).max("newestCreatedAt", newest);
+            }
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(userId)), update, NotificationArchive.class);
+        });
+    }
+
+    private static Date daysAgo(int days) {
+        return Date.from(Instant.now().minus(Duration.ofDays(days)));
+    }
+}
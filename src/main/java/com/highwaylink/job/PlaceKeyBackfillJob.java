@@ -0,0 +1,85 @@
+package com.highwaylink.job;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.highwaylink.model.Ride;
+import com.highwaylink.util.PlaceNormalizer;
+
+// Fills originKey/destinationKey and their word suffixes on rides written before
+// they existed. Runs once on startup in bounded batches; documents that already
+// have all four fields are never touched, so restarts are cheap.
+@Component
+public class PlaceKeyBackfillJob implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlaceKeyBackfillJob.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${highwaylink.rides.place-key-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${highwaylink.rides.place-key-backfill.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long updated = backfill();
+            if (updated > 0) {
+                logger.info("Backfilled place keys on {} rides", updated);
+            }
+        } catch (Exception e) {
+            logger.error("Place key backfill failed", e);
+        }
+    }
+
+    public long backfill() {
+        Criteria missingKeys = new Criteria().orOperator(
+                Criteria.where("originKey").exists(false),
+                Criteria.where("destinationKey").exists(false),
+                Criteria.where("originSuffixes").exists(false),
+                Criteria.where("destinationSuffixes").exists(false));
+
+        long total = 0;
+        while (true) {
+            Query query = new Query(missingKeys).limit(batchSize);
+            query.fields().include("origin").include("destination");
+            List<Ride> batch = mongoTemplate.find(query, Ride.class);
+            if (batch.isEmpty()) {
+                return total;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ride.class);
+            for (Ride ride : batch) {
+                bulk.updateOne(Query.query(Criteria.where("_id").is(ride.getId())),
+                        new Update()
+                                .set("originKey", PlaceNormalizer.toKey(ride.getOrigin()))
+                                .set("destinationKey", PlaceNormalizer.toKey(ride.getDestination()))
+                                .set("originSuffixes", PlaceNormalizer.wordSuffixes(ride.getOrigin()))
+                                .set("destinationSuffixes", PlaceNormalizer.wordSuffixes(ride.getDestination())));
+            }
+            total += bulk.execute().getModifiedCount();
+
+            if (batch.size() < batchSize) {
+                return total;
+            }
+        }
+    }
+}
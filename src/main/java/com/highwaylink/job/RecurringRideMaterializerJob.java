@@ -0,0 +1,39 @@
+package com.highwaylink.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.highwaylink.service.RecurringRideService;
+import com.highwaylink.util.DateTimeUtil;
+
+// Once a night (Asia/Colombo) extends every recurring series up to
+// highwaylink.rides.recurrence.horizon-days ahead. Running it again is harmless:
+// start times the owner already has a ride at are skipped.
+@Component
+public class RecurringRideMaterializerJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecurringRideMaterializerJob.class);
+
+    @Autowired
+    private RecurringRideService recurringRideService;
+
+    @Value("${highwaylink.rides.recurrence.enabled:true}")
+    private boolean enabled;
+
+    @Scheduled(cron = "${highwaylink.rides.recurrence.cron:0 30 0 * * *}", zone = DateTimeUtil.ZONE_ID)
+    public void materialize() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long created = recurringRideService.materializeAll();
+            logger.info("Materialized {} recurring ride instances", created);
+        } catch (Exception e) {
+            logger.error("Recurring ride materialization failed", e);
+        }
+    }
+}
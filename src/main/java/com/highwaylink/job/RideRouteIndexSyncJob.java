@@ -0,0 +1,30 @@
+package com.highwaylink.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.highwaylink.service.RideRouteIndex;
+
+// Periodic consistency check of the in-memory route index against Mongo. Catches
+// writes made by other instances or directly in the database.
+@Component
+public class RideRouteIndexSyncJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideRouteIndexSyncJob.class);
+
+    @Autowired
+    private RideRouteIndex rideRouteIndex;
+
+    @Scheduled(fixedDelayString = "${highwaylink.rides.route-index.sync-interval-ms:60000}",
+            initialDelayString = "${highwaylink.rides.route-index.sync-interval-ms:60000}")
+    public void sync() {
+        try {
+            rideRouteIndex.resync();
+        } catch (Exception e) {
+            logger.error("Ride route index consistency check failed", e);
+        }
+    }
+}
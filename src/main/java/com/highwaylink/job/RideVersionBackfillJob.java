@@ -0,0 +1,43 @@
+package com.highwaylink.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.highwaylink.model.Ride;
+
+// Rides saved before Ride.version existed load with a null version, which Spring
+// Data treats as a new document and tries to insert. Stamp them with version 0 so
+// the first save becomes a versioned update.
+@Component
+@Order(0)
+public class RideVersionBackfillJob implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideVersionBackfillJob.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            long updated = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("version").exists(false)),
+                    new Update().set("version", 0L),
+                    Ride.class).getModifiedCount();
+            if (updated > 0) {
+                logger.info("Initialized version on {} rides", updated);
+            }
+        } catch (Exception e) {
+            logger.error("Ride version backfill failed", e);
+        }
+    }
+}
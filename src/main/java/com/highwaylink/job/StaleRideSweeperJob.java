@@ -0,0 +1,174 @@
+package com.highwaylink.job;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.highwaylink.model.Booking;
+import com.highwaylink.model.Ride;
+import com.highwaylink.service.NotificationService;
+import com.highwaylink.service.RideRouteIndex;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Expires rides that were never started. startRide only accepts a start up to 15
+// minutes after startTime, so a SCHEDULED ride (or a legacy one without status)
+// whose startTime is more than grace-minutes in the past can no longer run, yet
+// it would stay active and bookable forever. The
+// job walks status_start_idx in batches of batch-size (at most max-batches per
+// run), flips each ride to EXPIRED / active=false with a guarded findAndModify
+// that also clears the pending requests, marks the rides' pending and approved
+// bookings EXPIRED, drops the rides from RideRouteIndex and then queues one
+// notification for the owner, each accepted passenger and each pending requester,
+// taken from the ride as it was just before the update.
+// Expired rides are counted in highwaylink.rides.expired.
+@Component
+public class StaleRideSweeperJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(StaleRideSweeperJob.class);
+
+    private static final List<String> STARTABLE = Arrays.asList("SCHEDULED", null);
+
+    private static final List<String> OPEN_BOOKINGS = List.of("PENDING", "APPROVED");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RideRouteIndex rideRouteIndex;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${highwaylink.rides.expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${highwaylink.rides.expiry.grace-minutes:15}")
+    private int graceMinutes;
+
+    @Value("${highwaylink.rides.expiry.batch-size:200}")
+    private int batchSize;
+
+    @Value("${highwaylink.rides.expiry.max-batches:10}")
+    private int maxBatches;
+
+    @Scheduled(fixedDelayString = "${highwaylink.rides.expiry.interval-ms:300000}",
+            initialDelayString = "${highwaylink.rides.expiry.initial-delay-ms:60000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long expired = expireStale();
+            if (expired > 0) {
+                logger.info("Expired {} rides that were never started", expired);
+            }
+        } catch (Exception e) {
+            logger.error("Stale ride sweep failed", e);
+        }
+    }
+
+    public long expireStale() {
+        Date cutoff = new Date(System.currentTimeMillis() - graceMinutes * 60_000L);
+        Criteria stale = Criteria.where("status").in(STARTABLE).and("startTime").lt(cutoff)
+                .and("active").is(true);
+
+        long total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            List<Ride> batch = nextBatch(stale);
+            if (batch.isEmpty()) {
+                break;
+            }
+            total += expire(batch, stale);
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        meterRegistry.counter("highwaylink.rides.expired").increment(total);
+        return total;
+    }
+
+    private List<Ride> nextBatch(Criteria stale) {
+        Query query = Query.query(stale).with(Sort.by(Sort.Direction.ASC, "startTime")).limit(batchSize);
+        query.fields().include("_id");
+        return mongoTemplate.find(query, Ride.class);
+    }
+
+    private long expire(List<Ride> batch, Criteria stale) {
+        Update update = new Update()
+                .set("status", "EXPIRED")
+                .set("active", false)
+                .set("requests", List.of())
+                .inc("version", 1);
+
+        // One ride at a time so each update hands back the requests and passengers it
+        // actually cleared, including ones added after the batch was read. Same
+        // criteria as the read: a ride edited or started in between is left alone.
+        List<Ride> expired = new ArrayList<>(batch.size());
+        for (Ride ride : batch) {
+            Query guarded = Query.query(new Criteria().andOperator(Criteria.where("_id").is(ride.getId()), stale));
+            guarded.fields().include("ownerId").include("origin").include("destination")
+                    .include("acceptedPassengers").include("requests");
+            Ride before = mongoTemplate.findAndModify(guarded, update, Ride.class);
+            if (before != null) {
+                expired.add(before);
+            }
+        }
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        List<String> expiredIds = new ArrayList<>(expired.size());
+        expired.forEach(ride -> expiredIds.add(ride.getId()));
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("rideId").in(expiredIds).and("status").in(OPEN_BOOKINGS)),
+                Update.update("status", "EXPIRED"), Booking.class);
+
+        for (Ride ride : expired) {
+            rideRouteIndex.remove(ride.getId());
+            notifyExpired(ride);
+        }
+        return expired.size();
+    }
+
+    // Queued through the notification outbox, which writes them in bulk
+    private void notifyExpired(Ride ride) {
+        String route = ride.getOrigin() + " to " + ride.getDestination();
+        try {
+            notificationService.createNotification(ride.getOwnerId(),
+                    "Your ride from " + route + " was not started in time and has expired.", "WARNING", ride.getId());
+            for (String passengerId : orEmpty(ride.getAcceptedPassengers())) {
+                notificationService.createNotification(passengerId,
+                        "The ride from " + route + " was not started by the driver and has expired.", "WARNING",
+                        ride.getId());
+            }
+            for (String requesterId : orEmpty(ride.getRequests())) {
+                notificationService.createNotification(requesterId,
+                        "Your request for the ride from " + route + " was not answered before it expired.", "INFO",
+                        ride.getId());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to notify about expired ride {}", ride.getId(), e);
+        }
+    }
+
+    private static List<String> orEmpty(List<String> ids) {
+        return ids != null ? ids : List.of();
+    }
+}
@@ -0,0 +1,135 @@
+package com.highwaylink.job;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.highwaylink.model.Notification;
+import com.highwaylink.model.NotificationCounter;
+import com.highwaylink.repository.NotificationRepository;
+import com.highwaylink.service.UnreadCounterService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Recounts unread notifications per user from the collection and corrects every
+// counter that drifted. Users without a counter are left alone; theirs is created
+// from a real count on first read. Corrections are counted in
+// highwaylink.notifications.unread_reconciled.
+//
+// The full pass only finds candidates; its aggregate is stale by the time the
+// counters are read. Each candidate is re-checked: read the counter, count that
+// user's unread notifications, then reset the counter only if it still holds the
+// value read. That alone can't see a write caught between its two steps: the
+// outbox inserts notifications before its listener increments the counter, and
+// marking read updates the notifications before the decrement. A reset in
+// between would take the pending change twice. So users with a notification
+// created or read within settle-ms are left for the next run; settle-ms must
+// exceed the outbox's flush delay and retries.
+@Component
+public class UnreadCounterReconcileJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnreadCounterReconcileJob.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${highwaylink.notifications.unread-reconcile-settle-ms:60000}")
+    private long settleMs;
+
+    @Scheduled(fixedDelayString = "${highwaylink.notifications.unread-reconcile-interval-ms:600000}",
+            initialDelayString = "${highwaylink.notifications.unread-reconcile-interval-ms:600000}")
+    public void reconcile() {
+        try {
+            long corrected = recount();
+            if (corrected > 0) {
+                logger.info("Corrected {} unread notification counters", corrected);
+            }
+        } catch (Exception e) {
+            logger.error("Unread counter reconciliation failed", e);
+        }
+    }
+
+    public long recount() {
+        Map<String, Long> actual = new HashMap<>();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("isRead").is(false)),
+                Aggregation.group("userId").count().as("n"));
+        for (Document row : mongoTemplate.aggregate(aggregation, Notification.class, Document.class)) {
+            actual.put(row.getString("_id"), row.get("n", Number.class).longValue());
+        }
+
+        List<String> drifted = new ArrayList<>();
+        try (Stream<NotificationCounter> counters = mongoTemplate.stream(new Query(), NotificationCounter.class)) {
+            Iterator<NotificationCounter> it = counters.iterator();
+            while (it.hasNext()) {
+                NotificationCounter counter = it.next();
+                if (counter.getUnread() != actual.getOrDefault(counter.getId(), 0L)) {
+                    drifted.add(counter.getId());
+                }
+            }
+        }
+
+        long corrected = 0;
+        for (String userId : drifted) {
+            if (correct(userId)) {
+                corrected++;
+            }
+        }
+
+        meterRegistry.counter("highwaylink.notifications.unread_reconciled").increment(corrected);
+        return corrected;
+    }
+
+    private boolean correct(String userId) {
+        NotificationCounter counter = mongoTemplate.findById(userId, NotificationCounter.class);
+        if (counter == null) {
+            return false;
+        }
+        long unread = notificationRepository.countByUserIdAndIsReadFalse(userId);
+        if (counter.getUnread() == unread) {
+            return false;
+        }
+        if (recentlyChanged(userId)) {
+            logger.debug("Notifications of user {} changed just now, reconciling next run", userId);
+            return false;
+        }
+        if (!unreadCounterService.reset(userId, counter.getUnread(), unread)) {
+            logger.debug("Unread counter of user {} changed while reconciling, skipped", userId);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean recentlyChanged(String userId) {
+        Date since = new Date(System.currentTimeMillis() - settleMs);
+        Criteria criteria = Criteria.where("userId").is(userId).orOperator(
+                Criteria.where("createdAt").gte(since),
+                Criteria.where("readAt").gte(since));
+        return mongoTemplate.exists(Query.query(criteria), Notification.class);
+    }
+}
@@ -3,9 +3,16 @@ package com.highwaylink.model;
 import java.util.Date;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Document("bookings")
+@CompoundIndex(name = "ride_status_idx", def = "{'rideId': 1, 'status': 1}")
+@CompoundIndex(name = "passenger_status_idx", def = "{'passengerId': 1, 'status': 1}")
+@CompoundIndex(name = "payment_collected_idx", def = "{'paymentStatus': 1, 'paymentCollectedAt': 1}")
+// Exports by request date: all bookings, and those of an owner's rides
+@CompoundIndex(name = "requested_id_idx", def = "{'requestedAt': 1, '_id': 1}")
+@CompoundIndex(name = "ride_requested_id_idx", def = "{'rideId': 1, 'requestedAt': 1, '_id': 1}")
 public class Booking {
     @Id 
     private String id;
@@ -0,0 +1,41 @@
+package com.highwaylink.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Cash/card totals and payment counts of one owner on one day (Asia/Colombo),
+// maintained with $inc as payments are recorded. Id is "<ownerId>:<yyyy-MM-dd>".
+@Document("earnings_daily")
+@CompoundIndex(name = "owner_day_idx", def = "{'ownerId': 1, 'day': 1}")
+public class EarningsDailyRollup {
+    @Id
+    private String id;
+    private String ownerId;
+    private String day;
+    private double cashTotal;
+    private double cardTotal;
+    private long cashCount;
+    private long cardCount;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getOwnerId() { return ownerId; }
+    public void setOwnerId(String ownerId) { this.ownerId = ownerId; }
+
+    public String getDay() { return day; }
+    public void setDay(String day) { this.day = day; }
+
+    public double getCashTotal() { return cashTotal; }
+    public void setCashTotal(double cashTotal) { this.cashTotal = cashTotal; }
+
+    public double getCardTotal() { return cardTotal; }
+    public void setCardTotal(double cardTotal) { this.cardTotal = cardTotal; }
+
+    public long getCashCount() { return cashCount; }
+    public void setCashCount(long cashCount) { this.cashCount = cashCount; }
+
+    public long getCardCount() { return cardCount; }
+    public void setCardCount(long cardCount) { this.cardCount = cardCount; }
+}
@@ -0,0 +1,48 @@
+package com.highwaylink.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// One collected payment, keyed by the booking it settles. day is the collection
+// date in Asia/Colombo (yyyy-MM-dd) and names the EarningsDailyRollup it counts in.
+@Document("earnings_ledger")
+@CompoundIndex(name = "owner_collected_id_idx", def = "{'ownerId': 1, 'collectedAt': 1, '_id': 1}")
+@CompoundIndex(name = "collected_id_idx", def = "{'collectedAt': 1, '_id': 1}")
+public class EarningsLedgerEntry {
+    @Id
+    private String id;
+    private String ownerId;
+    private String rideId;
+    private String passengerId;
+    private double amount;
+    private String paymentMethod;
+    private Date collectedAt;
+    private String day;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getOwnerId() { return ownerId; }
+    public void setOwnerId(String ownerId) { this.ownerId = ownerId; }
+
+    public String getRideId() { return rideId; }
+    public void setRideId(String rideId) { this.rideId = rideId; }
+
+    public String getPassengerId() { return passengerId; }
+    public void setPassengerId(String passengerId) { this.passengerId = passengerId; }
+
+    public double getAmount() { return amount; }
+    public void setAmount(double amount) { this.amount = amount; }
+
+    public String getPaymentMethod() { return paymentMethod; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+
+    public Date getCollectedAt() { return collectedAt; }
+    public void setCollectedAt(Date collectedAt) { this.collectedAt = collectedAt; }
+
+    public String getDay() { return day; }
+    public void setDay(String day) { this.day = day; }
+}
@@ -2,9 +2,14 @@ package com.highwaylink.model;
 
 import java.util.Date;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+// user_read_created_idx serves unread counts and the unread-only feed;
+// user_created_idx the keyset-paginated feed (createdAt, _id)
 @Document(collection = "notifications")
+@CompoundIndex(name = "user_read_created_idx", def = "{'userId': 1, 'isRead': 1, 'createdAt': -1}")
+@CompoundIndex(name = "user_created_idx", def = "{'userId': 1, 'createdAt': -1, '_id': -1}")
 public class Notification {
     @Id
     private String id;
@@ -14,6 +19,7 @@ public class Notification {
     private boolean isRead = false;
     private String relatedId; // rideId, etc.
     private Date createdAt = new Date();
+    private Date readAt; // set when marked read; read notifications expire by TTL on it
 
     public Notification() {
     }
@@ -81,4 +87,12 @@ public class Notification {
     public void setCreatedAt(Date createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Date getReadAt() {
+        return readAt;
+    }
+
+    public void setReadAt(Date readAt) {
+        this.readAt = readAt;
+    }
 }
@@ -0,0 +1,69 @@
+package com.highwaylink.model;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Summary of a user's unread notifications that were compacted away by the
+// retention job, keyed by userId
+@Document(collection = "notification_archives")
+public class NotificationArchive {
+    @Id
+    private String id;
+    private long archivedCount;
+    private Map<String, Long> countsByType = new HashMap<>();
+    private Date oldestCreatedAt;
+    private Date newestCreatedAt;
+    private Date updatedAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getArchivedCount() {
+        return archivedCount;
+    }
+
+    public void setArchivedCount(long archivedCount) {
+        this.archivedCount = archivedCount;
+    }
+
+    public Map<String, Long> getCountsByType() {
+        return countsByType;
+    }
+
+    public void setCountsByType(Map<String, Long> countsByType) {
+        this.countsByType = countsByType;
+    }
+
+    public Date getOldestCreatedAt() {
+        return oldestCreatedAt;
+    }
+
+    public void setOldestCreatedAt(Date oldestCreatedAt) {
+        this.oldestCreatedAt = oldestCreatedAt;
+    }
+
+    public Date getNewestCreatedAt() {
+        return newestCreatedAt;
+    }
+
+    public void setNewestCreatedAt(Date newestCreatedAt) {
+        this.newestCreatedAt = newestCreatedAt;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Date updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,28 @@
+package com.highwaylink.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Per-user count of unread notifications, keyed by userId
+@Document(collection = "notification_counters")
+public class NotificationCounter {
+    @Id
+    private String id;
+    private long unread;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getUnread() {
+        return unread;
+    }
+
+    public void setUnread(long unread) {
+        this.unread = unread;
+    }
+}
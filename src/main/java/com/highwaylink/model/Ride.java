@@ -5,46 +5,71 @@ import java.util.Date;
 import java.util.List;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.highwaylink.util.PlaceNormalizer;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @Document("rides")
+// Place search (multikey; two arrays can't share one compound index, Mongo picks one)
+@CompoundIndex(name = "origin_words_bookable_idx", def = "{'originSuffixes': 1, 'active': 1, 'startTime': 1}")
+@CompoundIndex(name = "destination_words_bookable_idx", def = "{'destinationSuffixes': 1, 'active': 1, 'startTime': 1}")
+@CompoundIndex(name = "status_start_idx", def = "{'status': 1, 'startTime': 1}")
+// Keyset pagination: all rides newest first, an owner's rides by start time
+@CompoundIndex(name = "created_id_idx", def = "{'createdAt': -1, '_id': -1}")
+@CompoundIndex(name = "owner_start_id_idx", def = "{'ownerId': 1, 'startTime': -1, '_id': -1}")
+// Exports of all rides by start time (also serves plain startTime ranges)
+@CompoundIndex(name = "start_id_idx", def = "{'startTime': 1, '_id': 1}")
+// One instance per owner and start time within a recurring series (see RecurringRideService)
+@CompoundIndex(name = "series_owner_start_idx", def = "{'ownerId': 1, 'startTime': 1}", unique = true,
+        partialFilter = "{'seriesId': {'$exists': true}}")
 public class Ride {
 
     @Id
     private String id;
+    // Optimistic locking: save() only succeeds if nobody else saved since we read
+    @Version
+    private Long version;
     @Indexed
     private String ownerId;
     private String ownerName;
     @JsonProperty
     private String ownerContact;
-    @Indexed
     private String origin;
-    @Indexed
     private String destination;
-    @Indexed
+    // Normalized search keys, derived from origin/destination (see PlaceNormalizer)
+    private String originKey;
+    private String destinationKey;
+    private List<String> originSuffixes;
+    private List<String> destinationSuffixes;
     private Date startTime;
     private Integer seatsAvailable;
     private Integer totalSeats;
     private double pricePerSeat;
     private String schedule;
+    // Id of the first ride of a recurring series; shared by all its instances
+    @Indexed(sparse = true)
+    private String seriesId;
     @Indexed
     private boolean active = true;
     private Date createdAt = new Date();
     @Indexed
     private String status;
 
+    @Indexed
     @JsonProperty("requests")
     private List<String> requests = new ArrayList<>();
     private List<String> passengers = new ArrayList<>();
+    @Indexed
     @JsonProperty("acceptedPassengers")
     private List<String> acceptedPassengers = new ArrayList<>();
+    @Indexed
     private List<String> canceledRequests = new ArrayList<>();
-    private List<Booking> bookings = new ArrayList<>();
 
     public String getId() {
         return id;
@@ -54,6 +79,14 @@ public class Ride {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getOwnerId() {
         return ownerId;
     }
@@ -84,6 +117,8 @@ public class Ride {
 
     public void setOrigin(String origin) {
         this.origin = origin;
+        this.originKey = PlaceNormalizer.toKey(origin);
+        this.originSuffixes = PlaceNormalizer.wordSuffixes(origin);
     }
 
     public String getDestination() {
@@ -92,6 +127,24 @@ public class Ride {
 
     public void setDestination(String destination) {
         this.destination = destination;
+        this.destinationKey = PlaceNormalizer.toKey(destination);
+        this.destinationSuffixes = PlaceNormalizer.wordSuffixes(destination);
+    }
+
+    public String getOriginKey() {
+        return originKey;
+    }
+
+    public String getDestinationKey() {
+        return destinationKey;
+    }
+
+    public List<String> getOriginSuffixes() {
+        return originSuffixes;
+    }
+
+    public List<String> getDestinationSuffixes() {
+        return destinationSuffixes;
     }
 
     public Date getStartTime() {
@@ -134,6 +187,14 @@ public class Ride {
         this.schedule = schedule;
     }
 
+    public String getSeriesId() {
+        return seriesId;
+    }
+
+    public void setSeriesId(String seriesId) {
+        this.seriesId = seriesId;
+    }
+
     public boolean isActive() {
         return active;
     }
@@ -189,12 +250,4 @@ public class Ride {
     public void setCanceledRequests(List<String> canceledRequests) {
         this.canceledRequests = canceledRequests;
     }
-
-    public List<Booking> getBookings() {
-        return bookings;
-    }
-
-    public void setBookings(List<Booking> bookings) {
-        this.bookings = bookings;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package com.highwaylink.model;
+
+import java.util.Date;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// State of a recurring series, keyed by seriesId (see RecurringRideService): the
+// template new instances are copied from (taken from the ride that created the
+// series or last edited it for the whole series, so one-off edits of that ride
+// don't spread), the schedule and the last day (Asia/Colombo, yyyy-MM-dd)
+// instances were created up to. startTime is the template's first start: its
+// date anchors the schedule, its time of day is every instance's.
+@Document("ride_series")
+public class RideSeries {
+    @Id
+    private String id;
+    private String ownerId;
+    private String ownerName;
+    private String ownerContact;
+    private String origin;
+    private String destination;
+    private Date startTime;
+    private Integer totalSeats;
+    private double pricePerSeat;
+    private String schedule;
+    private String materializedThrough;
+
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getOwnerId() { return ownerId; }
+    public void setOwnerId(String ownerId) { this.ownerId = ownerId; }
+
+    public String getOwnerName() { return ownerName; }
+    public void setOwnerName(String ownerName) { this.ownerName = ownerName; }
+
+    public String getOwnerContact() { return ownerContact; }
+    public void setOwnerContact(String ownerContact) { this.ownerContact = ownerContact; }
+
+    public String getOrigin() { return origin; }
+    public void setOrigin(String origin) { this.origin = origin; }
+
+    public String getDestination() { return destination; }
+    public void setDestination(String destination) { this.destination = destination; }
+
+    public Date getStartTime() { return startTime; }
+    public void setStartTime(Date startTime) { this.startTime = startTime; }
+
+    public Integer getTotalSeats() { return totalSeats; }
+    public void setTotalSeats(Integer totalSeats) { this.totalSeats = totalSeats; }
+
+    public double getPricePerSeat() { return pricePerSeat; }
+    public void setPricePerSeat(double pricePerSeat) { this.pricePerSeat = pricePerSeat; }
+
+    public String getSchedule() { return schedule; }
+    public void setSchedule(String schedule) { this.schedule = schedule; }
+
+    public String getMaterializedThrough() { return materializedThrough; }
+    public void setMaterializedThrough(String materializedThrough) { this.materializedThrough = materializedThrough; }
+}
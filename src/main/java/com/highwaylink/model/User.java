@@ -1,5 +1,8 @@
 package com.highwaylink.model;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -15,6 +18,12 @@ public class User {
     private String gender;
     private String vehicleNumber;
     private String vehicleType;
+    // Running rating aggregate, maintained on every review (see
+    // UserRepositoryCustom.applyRating); averageRating is derived from it.
+    // Histogram keys are the star values "1".."5".
+    private long ratingSum;
+    private long ratingCount;
+    private Map<String, Long> ratingHistogram = new HashMap<>();
 
     public String getId() {
         return id;
@@ -97,4 +106,28 @@ public class User {
     public void setAverageRating(Double averageRating) {
         this.averageRating = averageRating;
     }
+
+    public long getRatingSum() {
+        return ratingSum;
+    }
+
+    public void setRatingSum(long ratingSum) {
+        this.ratingSum = ratingSum;
+    }
+
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    public void setRatingCount(long ratingCount) {
+        this.ratingCount = ratingCount;
+    }
+
+    public Map<String, Long> getRatingHistogram() {
+        return ratingHistogram;
+    }
+
+    public void setRatingHistogram(Map<String, Long> ratingHistogram) {
+        this.ratingHistogram = ratingHistogram;
+    }
 }
@@ -0,0 +1,109 @@
+package com.highwaylink.repository;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.bson.Document;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.aggregation.UnsetOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import com.highwaylink.model.Ride;
+import com.highwaylink.util.DateTimeUtil;
+import com.highwaylink.util.PlaceNormalizer;
+
+// The bookable-ride search pipeline, shared by the blocking repository and the
+// reactive read path so both run exactly the same query
+public final class BookableRidesAggregation {
+
+    private static final String OWNER_PROFILE = "ownerProfile";
+
+    private BookableRidesAggregation() {
+    }
+
+    public static TypedAggregation<Ride> of(String origin, String destination, Date startFrom, Date startBefore,
+            String timeFrom, String timeTo, String vehicleType, Pageable pageable) {
+
+        List<AggregationOperation> stages = new ArrayList<>();
+
+        Criteria criteria = Criteria.where("active").is(true).and("seatsAvailable").gt(0);
+        // Anchored, case-sensitive prefix regexes on the word suffixes of the
+        // normalized keys are index range scans on the *_words_bookable_idx indexes
+        String originPrefix = PlaceNormalizer.prefixRegex(origin);
+        if (originPrefix != null) {
+            criteria = criteria.and("originSuffixes").regex(originPrefix);
+        }
+        String destinationPrefix = PlaceNormalizer.prefixRegex(destination);
+        if (destinationPrefix != null) {
+            criteria = criteria.and("destinationSuffixes").regex(destinationPrefix);
+        }
+        if (startFrom != null && startBefore != null) {
+            criteria = criteria.and("startTime").gte(startFrom).lt(startBefore);
+        } else if (startFrom != null) {
+            criteria = criteria.and("startTime").gte(startFrom);
+        } else if (startBefore != null) {
+            criteria = criteria.and("startTime").lt(startBefore);
+        }
+        stages.add(Aggregation.match(criteria));
+
+        // Time-of-day window across all dates: compare the Colombo wall-clock
+        // HH:mm of startTime server-side instead of formatting every ride in Java
+        if (hasText(timeFrom) || hasText(timeTo)) {
+            AggregationExpression rideTime = DateOperators.dateOf("startTime")
+                    .withTimezone(DateOperators.Timezone.valueOf(DateTimeUtil.ZONE_ID))
+                    .toString("%H:%M");
+            if (hasText(timeFrom)) {
+                stages.add(Aggregation.match(Criteria.expr(
+                        ComparisonOperators.Gte.valueOf(rideTime).greaterThanEqualToValue(timeFrom))));
+            }
+            if (hasText(timeTo)) {
+                stages.add(Aggregation.match(Criteria.expr(
+                        ComparisonOperators.Lte.valueOf(rideTime).lessThanEqualToValue(timeTo))));
+            }
+        }
+
+        if (hasText(vehicleType)) {
+            stages.add(ownerVehicleTypeLookup());
+            stages.add(Aggregation.match(Criteria.where(OWNER_PROFILE + ".vehicleType")
+                    .regex("^" + Pattern.quote(vehicleType) + "$", "i")));
+            stages.add(UnsetOperation.unset(OWNER_PROFILE));
+        }
+
+        stages.add(Aggregation.sort(Sort.by(Sort.Direction.ASC, "startTime").and(Sort.by("_id"))));
+        if (pageable != null && pageable.isPaged()) {
+            stages.add(Aggregation.skip(pageable.getOffset()));
+            stages.add(Aggregation.limit(pageable.getPageSize()));
+        }
+
+        return Aggregation.newAggregation(Ride.class, stages);
+    }
+
+    // Rides keep ownerId as a string while users are keyed by ObjectId, so the
+    // join converts it first. Only vehicleType is pulled across.
+    private static AggregationOperation ownerVehicleTypeLookup() {
+        Document ownerObjectId = new Document("$convert", new Document("input", "$ownerId")
+                .append("to", "objectId")
+                .append("onError", null)
+                .append("onNull", null));
+        Document pipeline = new Document("$match",
+                new Document("$expr", new Document("$eq", List.of("$_id", "$$ownerObjectId"))));
+        Document lookup = new Document("from", "users")
+                .append("let", new Document("ownerObjectId", ownerObjectId))
+                .append("pipeline", List.of(pipeline, new Document("$project", new Document("vehicleType", 1))))
+                .append("as", OWNER_PROFILE);
+        return context -> new Document("$lookup", lookup);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isEmpty();
+    }
+}
@@ -0,0 +1,27 @@
+package com.highwaylink.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.highwaylink.model.Booking;
+
+public interface BookingRepository extends MongoRepository<Booking, String> {
+    List<Booking> findByRideId(String rideId);
+
+    List<Booking> findByRideIdIn(Collection<String> rideIds);
+
+    List<Booking> findByPassengerIdAndRideIdIn(String passengerId, Collection<String> rideIds);
+
+    List<Booking> findByRideIdAndStatus(String rideId, String status);
+
+    Optional<Booking> findFirstByRideIdAndPassengerIdAndStatus(String rideId, String passengerId, String status);
+
+    List<Booking> findByRideIdInAndPaymentStatus(Collection<String> rideIds, String paymentStatus);
+
+    void deleteByRideIdAndPassengerIdAndStatus(String rideId, String passengerId, String status);
+
+    void deleteByRideId(String rideId);
+}
@@ -0,0 +1,24 @@
+package com.highwaylink.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import com.highwaylink.model.Notification;
+
+public interface NotificationRepositoryCustom {
+
+    // Up to limit notifications strictly older than (createdAt, id), newest first.
+    // A null createdAt starts at the newest notification.
+    List<Notification> findPageBefore(String userId, Date createdAt, String id, boolean unreadOnly, int limit);
+
+    // Up to limit notifications strictly newer than (createdAt, id), newest first
+    List<Notification> findPageSince(String userId, Date createdAt, String id, boolean unreadOnly, int limit);
+
+    // Marks the notification read if it is unread and returns it; null if it was
+    // already read or does not exist
+    Notification markRead(String id);
+
+    // Marks every unread notification of the user as read in one update and
+    // returns how many changed
+    long markAllRead(String userId);
+}
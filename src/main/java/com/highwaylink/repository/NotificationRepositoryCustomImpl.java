@@ -0,0 +1,77 @@
+package com.highwaylink.repository;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.highwaylink.model.Notification;
+
+public class NotificationRepositoryCustomImpl implements NotificationRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Notification> findPageBefore(String userId, Date createdAt, String id, boolean unreadOnly,
+            int limit) {
+        Criteria criteria = owner(userId, unreadOnly);
+        if (createdAt != null) {
+            criteria.orOperator(
+                    Criteria.where("createdAt").lt(createdAt),
+                    Criteria.where("createdAt").is(createdAt).and("_id").lt(new ObjectId(id)));
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(limit);
+        return mongoTemplate.find(query, Notification.class);
+    }
+
+    @Override
+    public List<Notification> findPageSince(String userId, Date createdAt, String id, boolean unreadOnly,
+            int limit) {
+        Criteria criteria = owner(userId, unreadOnly).orOperator(
+                Criteria.where("createdAt").gt(createdAt),
+                Criteria.where("createdAt").is(createdAt).and("_id").gt(new ObjectId(id)));
+        // Oldest first so a burst larger than limit is not skipped, then flipped
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "createdAt", "_id"))
+                .limit(limit);
+        List<Notification> page = mongoTemplate.find(query, Notification.class);
+        Collections.reverse(page);
+        return page;
+    }
+
+    @Override
+    public Notification markRead(String id) {
+        return mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id).and("isRead").is(false)),
+                new Update().set("isRead", true).set("readAt", new Date()),
+                FindAndModifyOptions.options().returnNew(true),
+                Notification.class);
+    }
+
+    @Override
+    public long markAllRead(String userId) {
+        return mongoTemplate.updateMulti(
+                Query.query(Criteria.where("userId").is(userId).and("isRead").is(false)),
+                new Update().set("isRead", true).set("readAt", new Date()),
+                Notification.class).getModifiedCount();
+    }
+
+    private static Criteria owner(String userId, boolean unreadOnly) {
+        Criteria criteria = Criteria.where("userId").is(userId);
+        if (unreadOnly) {
+            criteria.and("isRead").is(false);
+        }
+        return criteria;
+    }
+}
@@ -0,0 +1,35 @@
+package com.highwaylink.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.highwaylink.model.Ride;
+
+// One page of each of a passenger's ride buckets plus the bucket totals, as
+// returned by RideRepositoryCustom.findPassengerRides
+public class PassengerRideBuckets {
+    private List<Ride> approved = new ArrayList<>();
+    private List<Ride> pending = new ArrayList<>();
+    private List<Ride> canceled = new ArrayList<>();
+    private long totalApproved;
+    private long totalPending;
+    private long totalCanceled;
+
+    public List<Ride> getApproved() { return approved; }
+    public void setApproved(List<Ride> approved) { this.approved = approved; }
+
+    public List<Ride> getPending() { return pending; }
+    public void setPending(List<Ride> pending) { this.pending = pending; }
+
+    public List<Ride> getCanceled() { return canceled; }
+    public void setCanceled(List<Ride> canceled) { this.canceled = canceled; }
+
+    public long getTotalApproved() { return totalApproved; }
+    public void setTotalApproved(long totalApproved) { this.totalApproved = totalApproved; }
+
+    public long getTotalPending() { return totalPending; }
+    public void setTotalPending(long totalPending) { this.totalPending = totalPending; }
+
+    public long getTotalCanceled() { return totalCanceled; }
+    public void setTotalCanceled(long totalCanceled) { this.totalCanceled = totalCanceled; }
+}
@@ -0,0 +1,16 @@
+package com.highwaylink.repository;
+
+import java.util.Collection;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import com.highwaylink.model.Booking;
+
+import reactor.core.publisher.Flux;
+
+public interface ReactiveBookingRepository extends ReactiveMongoRepository<Booking, String> {
+
+    Flux<Booking> findByRideIdIn(Collection<String> rideIds);
+
+    Flux<Booking> findByPassengerIdAndRideIdIn(String passengerId, Collection<String> rideIds);
+}
@@ -0,0 +1,12 @@
+package com.highwaylink.repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import com.highwaylink.model.Review;
+
+import reactor.core.publisher.Flux;
+
+public interface ReactiveReviewRepository extends ReactiveMongoRepository<Review, String> {
+
+    Flux<Review> findByDriverId(String driverId);
+}
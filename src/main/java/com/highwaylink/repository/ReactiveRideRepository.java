@@ -0,0 +1,15 @@
+package com.highwaylink.repository;
+
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import com.highwaylink.model.Ride;
+
+import reactor.core.publisher.Mono;
+
+// Non-blocking reads for ReactiveRideReadService; all writes go through RideRepository
+public interface ReactiveRideRepository extends ReactiveMongoRepository<Ride, String>, ReactiveRideRepositoryCustom {
+
+    @Query(value = "{ '_id': ?0 }", fields = "{ 'version': 1, 'ownerId': 1 }")
+    Mono<Ride> findVersionById(String id);
+}
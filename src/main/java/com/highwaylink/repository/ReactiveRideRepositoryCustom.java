@@ -0,0 +1,16 @@
+package com.highwaylink.repository;
+
+import java.util.Date;
+
+import org.springframework.data.domain.Pageable;
+
+import com.highwaylink.model.Ride;
+
+import reactor.core.publisher.Flux;
+
+public interface ReactiveRideRepositoryCustom {
+
+    // Same filters and order as RideRepositoryCustom.searchBookableRides
+    Flux<Ride> searchBookableRides(String origin, String destination, Date startFrom, Date startBefore,
+            String timeFrom, String timeTo, String vehicleType, Pageable pageable);
+}
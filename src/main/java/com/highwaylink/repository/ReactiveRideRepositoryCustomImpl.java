@@ -0,0 +1,24 @@
+package com.highwaylink.repository;
+
+import java.util.Date;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import com.highwaylink.model.Ride;
+
+import reactor.core.publisher.Flux;
+
+public class ReactiveRideRepositoryCustomImpl implements ReactiveRideRepositoryCustom {
+
+    @Autowired
+    private ReactiveMongoTemplate reactiveMongoTemplate;
+
+    @Override
+    public Flux<Ride> searchBookableRides(String origin, String destination, Date startFrom, Date startBefore,
+            String timeFrom, String timeTo, String vehicleType, Pageable pageable) {
+        return reactiveMongoTemplate.aggregate(BookableRidesAggregation.of(origin, destination, startFrom,
+                startBefore, timeFrom, timeTo, vehicleType, pageable), Ride.class);
+    }
+}
@@ -0,0 +1,16 @@
+package com.highwaylink.repository;
+
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import com.highwaylink.model.User;
+
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {
+
+    // Only the owner fields ride DTOs show, for the single-ride ETag
+    @Query(value = "{ '_id': ?0 }",
+            fields = "{ 'ratingSum': 1, 'ratingCount': 1, 'averageRating': 1, 'gender': 1, 'vehicleType': 1, 'vehicleNumber': 1 }")
+    Mono<User> findOwnerDetailsById(String id);
+}
@@ -9,11 +9,13 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import com.highwaylink.model.Ride;
 
-public interface RideRepository extends MongoRepository<Ride, String> {
+public interface RideRepository extends MongoRepository<Ride, String>, RideRepositoryCustom {
     List<Ride> findByOwnerId(String ownerId);
 
     Page<Ride> findByOwnerId(String ownerId, Pageable pageable);
 
+    long countByOwnerId(String ownerId);
+
     List<Ride> findByOwnerIdAndStatus(String ownerId, String status);
 
     Page<Ride> findByOwnerIdAndStatus(String ownerId, String status, Pageable pageable);
@@ -24,14 +26,6 @@ public interface RideRepository extends MongoRepository<Ride, String> {
 
     Page<Ride> findByCanceledRequestsContains(String userId, Pageable pageable);
 
-    List<Ride> findByOriginContainingIgnoreCaseAndActiveTrueAndSeatsAvailableGreaterThan(String origin, int seats);
-
-    List<Ride> findByDestinationContainingIgnoreCaseAndActiveTrueAndSeatsAvailableGreaterThan(String destination,
-            int seats);
-
-    List<Ride> findByOriginContainingIgnoreCaseAndDestinationContainingIgnoreCaseAndActiveTrueAndSeatsAvailableGreaterThan(
-            String origin, String destination, int seats);
-
     List<Ride> findByActiveTrueAndSeatsAvailableGreaterThan(int seats);
 
     Page<Ride> findByActiveTrueAndSeatsAvailableGreaterThan(int seats, Pageable pageable);
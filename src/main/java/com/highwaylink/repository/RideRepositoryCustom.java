@@ -0,0 +1,53 @@
+package com.highwaylink.repository;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
+
+import com.highwaylink.model.Ride;
+
+public interface RideRepositoryCustom {
+
+    // Bookable rides (active, seats left) matching the given filters, sorted by
+    // startTime. Every filter is optional. Origin/destination match as a prefix of
+    // the normalized place key; time-of-day bounds are HH:mm in Asia/Colombo and
+    // apply on top of the startTime range.
+    List<Ride> searchBookableRides(String origin, String destination, Date startFrom, Date startBefore,
+            String timeFrom, String timeTo, String vehicleType, Pageable pageable);
+
+    // Atomically moves a pending passenger into acceptedPassengers and takes the
+    // seats, only if the ride still has at least that many seats left. Returns the
+    // updated ride, or null if any guard failed.
+    Ride reserveSeats(String rideId, String ownerId, String passengerId, int seats);
+
+    // Atomically removes an accepted passenger from a SCHEDULED ride and gives the
+    // seats back. Returns the updated ride, or null
+    // if any guard failed.
+    Ride releaseSeats(String rideId, String ownerId, String passengerId, int seats);
+
+    // The passenger's approved, pending and canceled rides (one page of each) and
+    // the total of each bucket, in a single $facet aggregation
+    PassengerRideBuckets findPassengerRides(String userId, Pageable pageable);
+
+    // Keyset pages for listings: all rides by (createdAt, id) and an owner's rides
+    // by (startTime, id), both descending. A null position starts at the top;
+    // otherwise the page continues after the ride at that position.
+    List<Ride> findPageBefore(Date createdAt, String id, int limit);
+
+    List<Ride> findOwnerPageBefore(String ownerId, Date startTime, String id, int limit);
+
+    // Version-only reads for conditional GETs: the same rides as findById and the
+    // keyset pages above, projected to id, version, owner and the sort key
+    Ride findVersionById(String id);
+
+    List<Ride> findPageVersionsBefore(Date createdAt, String id, int limit);
+
+    List<Ride> findOwnerPageVersionsBefore(String ownerId, Date startTime, String id, int limit);
+
+    // All of the passenger's rides, by id, projected like the pages above
+    List<Ride> findPassengerRideVersions(String userId);
+
+    // Collection size from metadata; cheap but approximate
+    long estimatedCount();
+}
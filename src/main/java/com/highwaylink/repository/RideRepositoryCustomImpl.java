@@ -0,0 +1,215 @@
+package com.highwaylink.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.highwaylink.model.Ride;
+
+public class RideRepositoryCustomImpl implements RideRepositoryCustom {
+
+    private static final String APPROVED = "acceptedPassengers";
+    private static final String PENDING = "requests";
+    private static final String CANCELED = "canceledRequests";
+
+    // Rides created before status existed count as scheduled
+    private static final List<String> BOOKABLE_STATUSES = Arrays.asList("SCHEDULED", null);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public List<Ride> searchBookableRides(String origin, String destination, Date startFrom, Date startBefore,
+            String timeFrom, String timeTo, String vehicleType, Pageable pageable) {
+        return mongoTemplate.aggregate(BookableRidesAggregation.of(origin, destination, startFrom, startBefore,
+                timeFrom, timeTo, vehicleType, pageable), Ride.class).getMappedResults();
+    }
+
+    @Override
+    public Ride reserveSeats(String rideId, String ownerId, String passengerId, int seats) {
+        // Only while the ride is bookable: an expired, started or canceled ride keeps its seats
+        Query query = Query.query(Criteria.where("_id").is(rideId)
+                .and("ownerId").is(ownerId)
+                .and("status").in(BOOKABLE_STATUSES)
+                .and("active").is(true)
+                .and("requests").is(passengerId)
+                .and("seatsAvailable").gte(seats));
+
+        Update update = new Update()
+                .inc("seatsAvailable", -seats)
+                .inc("version", 1)
+                .pull("requests", passengerId)
+                .push("acceptedPassengers", passengerId);
+
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Ride.class);
+    }
+
+    @Override
+    public Ride releaseSeats(String rideId, String ownerId, String passengerId, int seats) {
+        Query query = Query.query(Criteria.where("_id").is(rideId)
+                .and("ownerId").is(ownerId)
+                .and("status").is("SCHEDULED")
+                .and("acceptedPassengers").is(passengerId));
+
+        Update update = new Update()
+                .inc("seatsAvailable", seats)
+                .inc("version", 1)
+                .pull("acceptedPassengers", passengerId);
+
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Ride.class);
+    }
+
+    @Override
+    public PassengerRideBuckets findPassengerRides(String userId, Pageable pageable) {
+        // Narrow to the user's rides first (multikey indexes on the three arrays),
+        // then split into buckets
+        Criteria anyBucket = new Criteria().orOperator(
+                Criteria.where(APPROVED).is(userId),
+                Criteria.where(PENDING).is(userId),
+                Criteria.where(CANCELED).is(userId));
+
+        Sort sort = pageable.getSort().isSorted() ? pageable.getSort() : Sort.by(Sort.Direction.ASC, "_id");
+
+        TypedAggregation<Ride> aggregation = Aggregation.newAggregation(Ride.class,
+                Aggregation.match(anyBucket),
+                Aggregation.sort(sort),
+                Aggregation.facet(bucketPage(APPROVED, userId, pageable)).as(APPROVED)
+                        .and(Aggregation.match(Criteria.where(APPROVED).is(userId)), Aggregation.count().as("n"))
+                        .as(APPROVED + "Total")
+                        .and(bucketPage(PENDING, userId, pageable)).as(PENDING)
+                        .and(Aggregation.match(Criteria.where(PENDING).is(userId)), Aggregation.count().as("n"))
+                        .as(PENDING + "Total")
+                        .and(bucketPage(CANCELED, userId, pageable)).as(CANCELED)
+                        .and(Aggregation.match(Criteria.where(CANCELED).is(userId)), Aggregation.count().as("n"))
+                        .as(CANCELED + "Total"));
+
+        Document result = mongoTemplate.aggregate(aggregation, Document.class).getUniqueMappedResult();
+
+        PassengerRideBuckets buckets = new PassengerRideBuckets();
+        if (result == null) {
+            return buckets;
+        }
+        buckets.setApproved(readRides(result, APPROVED));
+        buckets.setPending(readRides(result, PENDING));
+        buckets.setCanceled(readRides(result, CANCELED));
+        buckets.setTotalApproved(readCount(result, APPROVED + "Total"));
+        buckets.setTotalPending(readCount(result, PENDING + "Total"));
+        buckets.setTotalCanceled(readCount(result, CANCELED + "Total"));
+        return buckets;
+    }
+
+    private static AggregationOperation[] bucketPage(String field, String userId, Pageable pageable) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(Criteria.where(field).is(userId)));
+        if (pageable.isPaged()) {
+            stages.add(Aggregation.skip(pageable.getOffset()));
+            stages.add(Aggregation.limit(pageable.getPageSize()));
+        }
+        return stages.toArray(new AggregationOperation[0]);
+    }
+
+    private List<Ride> readRides(Document result, String bucket) {
+        List<Document> docs = result.getList(bucket, Document.class);
+        List<Ride> rides = new ArrayList<>();
+        if (docs != null) {
+            for (Document doc : docs) {
+                rides.add(mongoTemplate.getConverter().read(Ride.class, doc));
+            }
+        }
+        return rides;
+    }
+
+    private static long readCount(Document result, String bucket) {
+        List<Document> docs = result.getList(bucket, Document.class);
+        if (docs == null || docs.isEmpty()) {
+            return 0;
+        }
+        return ((Number) docs.get(0).get("n")).longValue();
+    }
+
+    @Override
+    public List<Ride> findPageBefore(Date createdAt, String id, int limit) {
+        return mongoTemplate.find(pageBefore(createdAt, id, limit), Ride.class);
+    }
+
+    @Override
+    public List<Ride> findOwnerPageBefore(String ownerId, Date startTime, String id, int limit) {
+        return mongoTemplate.find(ownerPageBefore(ownerId, startTime, id, limit), Ride.class);
+    }
+
+    @Override
+    public Ride findVersionById(String id) {
+        Query query = Query.query(Criteria.where("_id").is(id));
+        query.fields().include("version").include("ownerId");
+        return mongoTemplate.findOne(query, Ride.class);
+    }
+
+    @Override
+    public List<Ride> findPageVersionsBefore(Date createdAt, String id, int limit) {
+        Query query = pageBefore(createdAt, id, limit);
+        query.fields().include("version").include("ownerId").include("createdAt");
+        return mongoTemplate.find(query, Ride.class);
+    }
+
+    @Override
+    public List<Ride> findOwnerPageVersionsBefore(String ownerId, Date startTime, String id, int limit) {
+        Query query = ownerPageBefore(ownerId, startTime, id, limit);
+        query.fields().include("version").include("ownerId").include("startTime");
+        return mongoTemplate.find(query, Ride.class);
+    }
+
+    @Override
+    public List<Ride> findPassengerRideVersions(String userId) {
+        Query query = Query.query(new Criteria().orOperator(
+                Criteria.where(APPROVED).is(userId),
+                Criteria.where(PENDING).is(userId),
+                Criteria.where(CANCELED).is(userId)))
+                .with(Sort.by(Sort.Direction.ASC, "_id"));
+        query.fields().include("version").include("ownerId");
+        return mongoTemplate.find(query, Ride.class);
+    }
+
+    private static Query pageBefore(Date createdAt, String id, int limit) {
+        Criteria criteria = new Criteria();
+        if (createdAt != null) {
+            criteria.orOperator(
+                    Criteria.where("createdAt").lt(createdAt),
+                    Criteria.where("createdAt").is(createdAt).and("_id").lt(new ObjectId(id)));
+        }
+        return Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createdAt", "_id"))
+                .limit(limit);
+    }
+
+    private static Query ownerPageBefore(String ownerId, Date startTime, String id, int limit) {
+        Criteria criteria = Criteria.where("ownerId").is(ownerId);
+        if (startTime != null) {
+            criteria.orOperator(
+                    Criteria.where("startTime").lt(startTime),
+                    Criteria.where("startTime").is(startTime).and("_id").lt(new ObjectId(id)));
+        }
+        return Query.query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "startTime", "_id"))
+                .limit(limit);
+    }
+
+    @Override
+    public long estimatedCount() {
+        return mongoTemplate.estimatedCount(Ride.class);
+    }
+}
@@ -1,13 +1,21 @@
 package com.highwaylink.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import com.highwaylink.model.User;
 
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
     java.util.List<User> findByRole(String role);
 
     Optional<User> findByEmail(String email);
+
+    // Only the owner fields ride DTOs show, for the ride ETags
+    @Query(value = "{ '_id': { '$in': ?0 } }",
+            fields = "{ 'ratingSum': 1, 'ratingCount': 1, 'averageRating': 1, 'gender': 1, 'vehicleType': 1, 'vehicleNumber': 1 }")
+    List<User> findOwnerDetailsByIdIn(Collection<String> ids);
 }
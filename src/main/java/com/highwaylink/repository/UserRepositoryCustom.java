@@ -0,0 +1,24 @@
+package com.highwaylink.repository;
+
+import java.util.Map;
+
+import com.highwaylink.model.User;
+
+public interface UserRepositoryCustom {
+
+    // Adds one review of the given star rating to the driver's aggregate
+    // (ratingSum, ratingCount, histogram) and recomputes averageRating from the new
+    // totals, all in one atomic pipeline update. Returns false if the driver does
+    // not exist.
+    boolean applyRating(String driverId, int rating);
+
+    // Overwrites the driver's aggregate with totals rebuilt from the reviews
+    // collection, only if ratingCount is still expectedCount (0 also matches a
+    // driver without an aggregate). Returns false when a review got in between.
+    boolean replaceRatingAggregate(String driverId, long expectedCount, long sum, long count,
+            Map<String, Long> histogram);
+
+    // $sets just the given profile fields and returns the updated user, or null if
+    // there is none; fields not listed (e.g. the rating aggregate) are left alone
+    User updateProfile(String userId, Map<String, Object> fields);
+}
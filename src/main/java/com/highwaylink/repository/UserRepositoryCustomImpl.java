@@ -0,0 +1,79 @@
+package com.highwaylink.repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.aggregation.ConditionalOperators;
+import org.springframework.data.mongodb.core.aggregation.SetOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.highwaylink.model.User;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public boolean applyRating(String driverId, int rating) {
+        // One pipeline update: the totals and the average derived from them change
+        // together, so no reader sees one without the other
+        String bucket = "ratingHistogram." + rating;
+        AggregationUpdate update = AggregationUpdate.update()
+                .set(SetOperation.builder()
+                        .set("ratingSum").toValue(plus("ratingSum", rating))
+                        .and().set("ratingCount").toValue(plus("ratingCount", 1))
+                        .and().set(bucket).toValue(plus(bucket, 1)))
+                .set(refreshAverage());
+        return mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(driverId)), update, User.class)
+                .getMatchedCount() > 0;
+    }
+
+    @Override
+    public boolean replaceRatingAggregate(String driverId, long expectedCount, long sum, long count,
+            Map<String, Long> histogram) {
+        Criteria unchanged = expectedCount == 0
+                ? new Criteria().orOperator(Criteria.where("ratingCount").exists(false),
+                        Criteria.where("ratingCount").is(0))
+                : Criteria.where("ratingCount").is(expectedCount);
+        double average = count == 0 ? 0.0 : Math.round((double) sum / count * 10.0) / 10.0;
+        return mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(driverId)).addCriteria(unchanged),
+                new Update()
+                        .set("ratingSum", sum)
+                        .set("ratingCount", count)
+                        .set("ratingHistogram", histogram != null ? histogram : new HashMap<>())
+                        .set("averageRating", average),
+                User.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public User updateProfile(String userId, Map<String, Object> fields) {
+        Update update = new Update();
+        fields.forEach(update::set);
+        return mongoTemplate.findAndModify(Query.query(Criteria.where("_id").is(userId)), update,
+                FindAndModifyOptions.options().returnNew(true), User.class);
+    }
+
+    // averageRating = round(ratingSum / ratingCount, 1), or 0 without reviews
+    private static SetOperation refreshAverage() {
+        return SetOperation.set("averageRating").toValue(
+                ConditionalOperators.when(ComparisonOperators.Gt.valueOf("ratingCount").greaterThanValue(0))
+                        .then(ArithmeticOperators.Round.roundValueOf(
+                                ArithmeticOperators.Divide.valueOf("ratingSum").divideBy("ratingCount")).place(1))
+                        .otherwise(0.0));
+    }
+
+    // field + amount, counting a missing field as 0
+    private static AggregationExpression plus(String field, int amount) {
+        return ArithmeticOperators.Add.valueOf(ConditionalOperators.ifNull(field).then(0)).add(amount);
+    }
+}
@@ -0,0 +1,231 @@
+package com.highwaylink.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.highwaylink.exception.BadRequestException;
+import com.highwaylink.model.Booking;
+import com.highwaylink.model.EarningsDailyRollup;
+import com.highwaylink.model.EarningsLedgerEntry;
+import com.highwaylink.util.DateTimeUtil;
+
+// Driver earnings. Every collected payment is written to the earnings ledger and
+// $inc'ed into the owner's daily rollup for its Asia/Colombo date; the earnings
+// endpoints read rollups only, so their cost depends on the days asked for, not on
+// how many rides or bookings the owner has.
+@Service
+public class EarningsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EarningsService.class);
+
+    private static final int MAX_RANGE_DAYS = 5 * 366;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Records (or corrects) the payment of a booking. A booking marked collected
+    // twice replaces its earlier entry and the rollups move with it.
+    public void recordPayment(Booking booking, String ownerId) {
+        EarningsLedgerEntry entry = toEntry(booking, ownerId);
+        EarningsLedgerEntry previous = mongoTemplate.findAndReplace(
+                Query.query(Criteria.where("_id").is(entry.getId())), entry,
+                FindAndReplaceOptions.options().upsert());
+        if (previous != null) {
+            applyToRollup(previous, -1);
+        }
+        applyToRollup(entry, 1);
+    }
+
+    // Records the payment unless the booking already has a ledger entry; returns
+    // whether it was added
+    public boolean recordIfAbsent(Booking booking, String ownerId) {
+        EarningsLedgerEntry entry = toEntry(booking, ownerId);
+        Update insertOnly = new Update()
+                .setOnInsert("ownerId", entry.getOwnerId())
+                .setOnInsert("rideId", entry.getRideId())
+                .setOnInsert("passengerId", entry.getPassengerId())
+                .setOnInsert("amount", entry.getAmount())
+                .setOnInsert("paymentMethod", entry.getPaymentMethod())
+                .setOnInsert("collectedAt", entry.getCollectedAt())
+                .setOnInsert("day", entry.getDay());
+        boolean inserted = mongoTemplate.upsert(Query.query(Criteria.where("_id").is(entry.getId())), insertOnly,
+                EarningsLedgerEntry.class).getUpsertedId() != null;
+        if (inserted) {
+            applyToRollup(entry, 1);
+        }
+        return inserted;
+    }
+
+    public Map<String, Object> getTodayEarnings(String ownerId) {
+        LocalDate today = LocalDate.now(DateTimeUtil.ZONE);
+        EarningsDailyRollup rollup = mongoTemplate.findById(rollupId(ownerId, today.toString()),
+                EarningsDailyRollup.class);
+
+        Totals totals = new Totals();
+        if (rollup != null) {
+            totals.add(rollup);
+        }
+        Map<String, Object> earnings = totals.toMap();
+        earnings.put("date", today.toString());
+        return earnings;
+    }
+
+    public Map<String, Object> getTotalEarnings(String ownerId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("ownerId").is(ownerId)),
+                Aggregation.group("ownerId")
+                        .sum("cashTotal").as("cashTotal")
+                        .sum("cardTotal").as("cardTotal")
+                        .sum("cashCount").as("cashCount")
+                        .sum("cardCount").as("cardCount"));
+        Document sums = mongoTemplate.aggregate(aggregation, EarningsDailyRollup.class, Document.class)
+                .getUniqueMappedResult();
+
+        Totals totals = new Totals();
+        if (sums != null) {
+            totals.cash = number(sums, "cashTotal").doubleValue();
+            totals.card = number(sums, "cardTotal").doubleValue();
+            totals.cashCount = number(sums, "cashCount").longValue();
+            totals.cardCount = number(sums, "cardCount").longValue();
+        }
+        return totals.toMap();
+    }
+
+    // Earnings between two dates (inclusive, Asia/Colombo) bucketed by day, week
+    // (starting Monday) or month. Empty periods are included with zeros.
+    public Map<String, Object> getEarnings(String ownerId, String from, String to, String granularity) {
+        LocalDate end = to != null ? DateTimeUtil.parseDate(to) : LocalDate.now(DateTimeUtil.ZONE);
+        LocalDate start = from != null ? DateTimeUtil.parseDate(from) : end.minusDays(29);
+        String unit = granularity != null ? granularity.toLowerCase() : "day";
+
+        if (start.isAfter(end)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_RANGE_DAYS) {
+            throw new BadRequestException("Date range is limited to " + MAX_RANGE_DAYS + " days");
+        }
+        if (!unit.equals("day") && !unit.equals("week") && !unit.equals("month")) {
+            throw new BadRequestException("granularity must be day, week or month");
+        }
+
+        Map<String, Totals> buckets = new LinkedHashMap<>();
+        for (LocalDate day = start; !day.isAfter(end); day = day.plusDays(1)) {
+            buckets.computeIfAbsent(period(day, unit), p -> new Totals());
+        }
+
+        Query query = Query.query(Criteria.where("ownerId").is(ownerId)
+                .and("day").gte(start.toString()).lte(end.toString()));
+        for (EarningsDailyRollup rollup : mongoTemplate.find(query, EarningsDailyRollup.class)) {
+            Totals bucket = buckets.get(period(LocalDate.parse(rollup.getDay()), unit));
+            if (bucket != null) {
+                bucket.add(rollup);
+            }
+        }
+
+        List<Map<String, Object>> series = new ArrayList<>(buckets.size());
+        buckets.forEach((period, totals) -> {
+            Map<String, Object> row = totals.toMap();
+            row.put("period", period);
+            series.add(row);
+        });
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("from", start.toString());
+        result.put("to", end.toString());
+        result.put("granularity", unit);
+        result.put("buckets", series);
+        return result;
+    }
+
+    private void applyToRollup(EarningsLedgerEntry entry, int sign) {
+        Update update = new Update()
+                .setOnInsert("ownerId", entry.getOwnerId())
+                .setOnInsert("day", entry.getDay());
+        if ("CASH".equals(entry.getPaymentMethod())) {
+            update.inc("cashTotal", sign * entry.getAmount()).inc("cashCount", sign);
+        } else if ("CARD".equals(entry.getPaymentMethod())) {
+            update.inc("cardTotal", sign * entry.getAmount()).inc("cardCount", sign);
+        } else {
+            logger.debug("Payment {} has method {}, not counted in earnings", entry.getId(), entry.getPaymentMethod());
+            return;
+        }
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(rollupId(entry.getOwnerId(), entry.getDay()))),
+                update, EarningsDailyRollup.class);
+    }
+
+    private static EarningsLedgerEntry toEntry(Booking booking, String ownerId) {
+        EarningsLedgerEntry entry = new EarningsLedgerEntry();
+        entry.setId(booking.getId());
+        entry.setOwnerId(ownerId);
+        entry.setRideId(booking.getRideId());
+        entry.setPassengerId(booking.getPassengerId());
+        entry.setAmount(booking.getAmountPaid() != null ? booking.getAmountPaid() : 0.0);
+        entry.setPaymentMethod(booking.getPaymentMethod());
+        entry.setCollectedAt(booking.getPaymentCollectedAt());
+        entry.setDay(booking.getPaymentCollectedAt().toInstant().atZone(DateTimeUtil.ZONE).toLocalDate().toString());
+        return entry;
+    }
+
+    private static String rollupId(String ownerId, String day) {
+        return ownerId + ":" + day;
+    }
+
+    private static String period(LocalDate day, String unit) {
+        switch (unit) {
+            case "week":
+                return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toString();
+            case "month":
+                return day.toString().substring(0, 7);
+            default:
+                return day.toString();
+        }
+    }
+
+    private static Number number(Document document, String key) {
+        Number value = document.get(key, Number.class);
+        return value != null ? value : 0;
+    }
+
+    private static class Totals {
+        double cash;
+        double card;
+        long cashCount;
+        long cardCount;
+
+        void add(EarningsDailyRollup rollup) {
+            cash += rollup.getCashTotal();
+            card += rollup.getCardTotal();
+            cashCount += rollup.getCashCount();
+            cardCount += rollup.getCardCount();
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> earnings = new HashMap<>();
+            earnings.put("cashEarnings", cash);
+            earnings.put("cardEarnings", card);
+            earnings.put("totalEarnings", cash + card);
+            earnings.put("cashPaymentsCount", cashCount);
+            earnings.put("cardPaymentsCount", cardCount);
+            return earnings;
+        }
+    }
+}
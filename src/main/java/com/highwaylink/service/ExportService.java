@@ -0,0 +1,197 @@
+package com.highwaylink.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.highwaylink.exception.BadRequestException;
+import com.highwaylink.model.Booking;
+import com.highwaylink.model.EarningsLedgerEntry;
+import com.highwaylink.model.Ride;
+import com.highwaylink.util.DateTimeUtil;
+
+// Streams rides, bookings and earnings for a date range as NDJSON or CSV straight
+// from a Mongo cursor into the response. Only the exported fields are fetched, one
+// row is held at a time and output is flushed every flush-rows rows, so memory
+// stays flat however large the export is. Admins export everything; anyone else
+// only the data of their own rides.
+@Service
+public class ExportService {
+
+    public enum Dataset {
+        RIDES(Ride.class, "startTime", List.of("id", "ownerId", "ownerName", "origin", "destination", "startTime",
+                "status", "active", "totalSeats", "seatsAvailable", "pricePerSeat", "createdAt")),
+        BOOKINGS(Booking.class, "requestedAt", List.of("id", "rideId", "passengerId", "passengerName",
+                "seatsRequested", "status", "paymentMethod", "paymentStatus", "requestedAt", "paymentCollectedAt",
+                "amountPaid")),
+        EARNINGS(EarningsLedgerEntry.class, "collectedAt", List.of("id", "ownerId", "rideId", "passengerId", "amount",
+                "paymentMethod", "collectedAt", "day"));
+
+        private final Class<?> entity;
+        private final String dateField;
+        private final List<String> columns;
+
+        Dataset(Class<?> entity, String dateField, List<String> columns) {
+            this.entity = entity;
+            this.dateField = dateField;
+            this.columns = columns;
+        }
+
+        public List<String> getColumns() {
+            return columns;
+        }
+    }
+
+    public enum Format {
+        NDJSON, CSV;
+
+        public static Format parse(String format) {
+            try {
+                return Format.valueOf(format.toUpperCase());
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new BadRequestException("format must be ndjson or csv");
+            }
+        }
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${highwaylink.exports.flush-rows:500}")
+    private int flushRows;
+
+    // Builds the query up front so bad parameters fail before the response starts
+    public Query buildQuery(Dataset dataset, String from, String to, String userId, boolean isAdmin) {
+        LocalDate end = to != null ? DateTimeUtil.parseDate(to) : LocalDate.now(DateTimeUtil.ZONE);
+        LocalDate start = from != null ? DateTimeUtil.parseDate(from) : end.minusDays(29);
+        if (start.isAfter(end)) {
+            throw new BadRequestException("'from' must not be after 'to'");
+        }
+
+        Criteria criteria = Criteria.where(dataset.dateField)
+                .gte(DateTimeUtil.startOfDay(start))
+                .lt(DateTimeUtil.startOfDay(end.plusDays(1)));
+        if (!isAdmin) {
+            if (dataset == Dataset.BOOKINGS) {
+                criteria.and("rideId").in(ownedRideIds(userId));
+            } else {
+                criteria.and("ownerId").is(userId);
+            }
+        }
+
+        // In date order, _id breaking ties, so the range is read along the dataset's
+        // (owner, date, _id) / (date, _id) indexes instead of being sorted in memory
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, dataset.dateField, "_id"))
+                .cursorBatchSize(flushRows);
+        dataset.columns.forEach(column -> query.fields().include(column.equals("id") ? "_id" : column));
+        return query;
+    }
+
+    public void write(Dataset dataset, Query query, Format format, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(String.join(",", dataset.columns));
+            writer.write('\n');
+        }
+
+        String collection = mongoTemplate.getCollectionName(dataset.entity);
+        try (Stream<Document> rows = mongoTemplate.stream(query, Document.class, collection)) {
+            Iterator<Document> it = rows.iterator();
+            long written = 0;
+            while (it.hasNext()) {
+                Map<String, Object> row = toRow(dataset, it.next());
+                if (format == Format.CSV) {
+                    writeCsv(writer, row);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+                if (++written % flushRows == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    private List<String> ownedRideIds(String ownerId) {
+        Query rides = Query.query(Criteria.where("ownerId").is(ownerId));
+        rides.fields().include("_id");
+        List<String> ids = new ArrayList<>();
+        mongoTemplate.find(rides, Document.class, mongoTemplate.getCollectionName(Ride.class))
+                .forEach(doc -> ids.add(String.valueOf(plain(doc.get("_id")))));
+        return ids;
+    }
+
+    private static Map<String, Object> toRow(Dataset dataset, Document doc) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String column : dataset.columns) {
+            row.put(column, plain(doc.get(column.equals("id") ? "_id" : column)));
+        }
+        return row;
+    }
+
+    private static Object plain(Object value) {
+        if (value instanceof ObjectId) {
+            return ((ObjectId) value).toHexString();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).toInstant().toString();
+        }
+        return value;
+    }
+
+    static void writeCsv(Writer writer, Map<String, Object> row) throws IOException {
+        boolean first = true;
+        for (Object value : row.values()) {
+            if (!first) {
+                writer.write(',');
+            }
+            first = false;
+            if (value == null) {
+                continue;
+            }
+            String text = value.toString();
+            // Text a spreadsheet would run as a formula (place names, passenger
+            // names) is kept as text; numbers such as negative amounts are left alone
+            if (value instanceof String && !text.isEmpty() && "=+-@\t\r".indexOf(text.charAt(0)) >= 0) {
+                text = "'" + text;
+            }
+            if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0
+                    || text.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(text.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(text);
+            }
+        }
+        writer.write('\n');
+    }
+}
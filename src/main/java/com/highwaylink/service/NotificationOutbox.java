@@ -0,0 +1,235 @@
+package com.highwaylink.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.highwaylink.model.Notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// In-process outbox for notifications. Producers only enqueue; worker threads drain
+// the bounded queue and write with one insertMany per batch, flushing when a batch
+// is full or max-delay-ms after its first entry. When the queue stays full the
+// producer writes its notification itself (backpressure instead of loss). Failed
+// batches are retried with backoff and dropped after max-retries; on shutdown the
+// queue is flushed before Mongo goes away.
+//
+// Notifications get their id before they are queued, so a retried batch that was
+// partly written only produces duplicate-key errors, which are ignored.
+//
+// Metrics: highwaylink.notifications.outbox.depth (gauge), .batch_size, .retries,
+// .dropped, .backpressure.
+@Component
+public class NotificationOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationOutbox.class);
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${highwaylink.notifications.outbox.capacity:10000}")
+    private int capacity;
+
+    @Value("${highwaylink.notifications.outbox.workers:2}")
+    private int workerCount;
+
+    @Value("${highwaylink.notifications.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${highwaylink.notifications.outbox.max-delay-ms:200}")
+    private long maxDelayMs;
+
+    @Value("${highwaylink.notifications.outbox.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${highwaylink.notifications.outbox.max-retries:3}")
+    private int maxRetries;
+
+    @Value("${highwaylink.notifications.outbox.retry-backoff-ms:100}")
+    private long retryBackoffMs;
+
+    private BlockingQueue<Notification> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    // Registered at startup, iterated by every worker
+    private final List<Consumer<List<Notification>>> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean running;
+
+    private DistributionSummary batchSizes;
+    private Counter retries;
+    private Counter dropped;
+    private Counter backpressure;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(capacity);
+        meterRegistry.gauge("highwaylink.notifications.outbox.depth", queue, BlockingQueue::size);
+        batchSizes = meterRegistry.summary("highwaylink.notifications.outbox.batch_size");
+        retries = meterRegistry.counter("highwaylink.notifications.outbox.retries");
+        dropped = meterRegistry.counter("highwaylink.notifications.outbox.dropped");
+        backpressure = meterRegistry.counter("highwaylink.notifications.outbox.backpressure");
+
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::drainLoop, "notification-outbox-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    // Called with every batch once it is stored
+    public void addListener(Consumer<List<Notification>> listener) {
+        listeners.add(listener);
+    }
+
+    public void enqueue(Notification notification) {
+        if (running) {
+            try {
+                if (queue.offer(notification, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            backpressure.increment();
+        }
+        // Queue full (or shutting down): write on the caller's thread
+        write(List.of(notification));
+    }
+
+    private void drainLoop() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Notification first = queue.poll(maxDelayMs, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Notification next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<Notification> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long backoff = retryBackoffMs;
+        for (int attempt = 0;; attempt++) {
+            try {
+                insertMany(batch);
+                batchSizes.record(batch.size());
+                notifyListeners(batch);
+                return;
+            } catch (DataAccessException e) {
+                if (attempt >= maxRetries) {
+                    dropped.increment(batch.size());
+                    logger.error("Dropping {} notifications after {} failed attempts", batch.size(), attempt + 1, e);
+                    return;
+                }
+                retries.increment();
+                logger.warn("Notification batch of {} failed (attempt {}), retrying: {}", batch.size(), attempt + 1,
+                        e.getMessage());
+                if (!Thread.currentThread().isInterrupted()) {
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException ie) {
+                        // Shutting down: keep retrying without waiting
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                backoff *= 2;
+            }
+        }
+    }
+
+    private void insertMany(List<Notification> batch) {
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Notification.class).insert(batch).execute();
+        } catch (BulkOperationException e) {
+            boolean onlyDuplicates = e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+        }
+    }
+
+    private void notifyListeners(List<Notification> batch) {
+        for (Consumer<List<Notification>> listener : listeners) {
+            try {
+                listener.accept(batch);
+            } catch (Exception e) {
+                logger.warn("Notification listener failed", e);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        List<Notification> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int from = 0; from < remaining.size(); from += batchSize) {
+            write(remaining.subList(from, Math.min(remaining.size(), from + batchSize)));
+        }
+        if (!remaining.isEmpty()) {
+            logger.info("Flushed {} queued notifications on shutdown", remaining.size());
+        }
+    }
+}
@@ -1,48 +1,140 @@
 package com.highwaylink.service;
 
+import java.util.Date;
 import java.util.List;
+
+import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import com.highwaylink.DTO.NotificationFeedDTO;
+import com.highwaylink.exception.BadRequestException;
 import com.highwaylink.model.Notification;
 import com.highwaylink.repository.NotificationRepository;
 
 @Service
 public class NotificationService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
+    // Sorts before every id created in the same millisecond
+    private static final String MIN_ID = "000000000000000000000000";
+
     @Autowired
     private NotificationRepository notificationRepository;
 
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Value("${highwaylink.notifications.feed.page-size:50}")
+    private int defaultPageSize;
+
+    @Autowired
+    private NotificationOutbox notificationOutbox;
+
+    @Value("${highwaylink.notifications.outbox.max-lag-ms:5000}")
+    private long maxLagMs;
+
+    // Queues the notification for a batched write (see NotificationOutbox) and
+    // returns immediately. The id is assigned here so callers can refer to it.
     public Notification createNotification(String userId, String message, String type, String relatedId) {
         Notification notification = new Notification(userId, message, type, relatedId);
-        return notificationRepository.save(notification);
+        notification.setId(new ObjectId().toHexString());
+        notificationOutbox.enqueue(notification);
+        return notification;
     }
 
+    // The newest notifications (bounded); older ones are reached through getFeed
     public List<Notification> getUserNotifications(String userId) {
-        return notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
+        return notificationRepository.findPageBefore(userId, null, null, false, defaultPageSize);
+    }
+
+    // Keyset-paginated feed, newest first. "before" pages backwards from a
+    // nextCursor, "since" returns what arrived after a latestCursor.
+    //
+    // createdAt and the id are assigned when a notification is queued, and the
+    // outbox stores it up to max-lag-ms later, so a notification can appear
+    // behind one a client has already seen. latestCursor therefore never moves
+    // past max-lag-ms ago: the next "since" re-reads that window, and the client
+    // drops ids it already has.
+    public NotificationFeedDTO getFeed(String userId, String before, String since, boolean unreadOnly,
+            Integer limit) {
+        int size = limit == null ? defaultPageSize : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        List<Notification> items;
+        if (since != null) {
+            Notification cursor = decodeCursor(since);
+            items = notificationRepository.findPageSince(userId, cursor.getCreatedAt(), cursor.getId(), unreadOnly,
+                    size);
+        } else if (before != null) {
+            Notification cursor = decodeCursor(before);
+            items = notificationRepository.findPageBefore(userId, cursor.getCreatedAt(), cursor.getId(), unreadOnly,
+                    size);
+        } else {
+            items = notificationRepository.findPageBefore(userId, null, null, unreadOnly, size);
+        }
+
+        String nextCursor = items.size() == size ? encodeCursor(items.get(items.size() - 1)) : null;
+        Notification newest = !items.isEmpty() ? items.get(0) : since != null ? decodeCursor(since) : null;
+        return new NotificationFeedDTO(items, nextCursor, encodeCursor(settled(newest)));
+    }
+
+    // newest, or the point before which every notification is certainly stored if
+    // that is older
+    private Notification settled(Notification newest) {
+        Date stored = new Date(System.currentTimeMillis() - maxLagMs);
+        if (newest != null && newest.getCreatedAt().before(stored)) {
+            return newest;
+        }
+        Notification position = new Notification();
+        position.setCreatedAt(stored);
+        position.setId(MIN_ID);
+        return position;
+    }
+
+    // Cursor = "<createdAt epoch millis>_<id>"
+    private static String encodeCursor(Notification notification) {
+        return notification.getCreatedAt().getTime() + "_" + notification.getId();
+    }
+
+    private static Notification decodeCursor(String cursor) {
+        int separator = cursor.indexOf('_');
+        if (separator <= 0) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        String id = cursor.substring(separator + 1);
+        if (!ObjectId.isValid(id)) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        Notification position = new Notification();
+        try {
+            position.setCreatedAt(new Date(Long.parseLong(cursor.substring(0, separator))));
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        position.setId(id);
+        return position;
     }
 
     public long getUnreadCount(String userId) {
-        return notificationRepository.countByUserIdAndIsReadFalse(userId);
+        return unreadCounterService.getUnread(userId);
     }
 
     public Notification markAsRead(String id) {
         if (id == null)
             return null;
-        Notification notification = notificationRepository.findById(id).orElse(null);
+        // Only the call that flips isRead adjusts the counter
+        Notification notification = notificationRepository.markRead(id);
         if (notification != null) {
-            notification.setRead(true);
-            return notificationRepository.save(notification);
+            unreadCounterService.adjust(notification.getUserId(), -1);
+            return notification;
         }
-        return null;
+        return notificationRepository.findById(id).orElse(null);
     }
 
-    public void markAllAsRead(String userId) {
-        List<Notification> notifications = notificationRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        notifications.forEach(n -> {
-            if (!n.isRead()) {
-                n.setRead(true);
-                notificationRepository.save(n);
-            }
-        });
+    public long markAllAsRead(String userId) {
+        long updated = notificationRepository.markAllRead(userId);
+        unreadCounterService.adjust(userId, -updated);
+        return updated;
     }
 }
@@ -0,0 +1,153 @@
+package com.highwaylink.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.highwaylink.model.Notification;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+// Open notification streams per user. Each stream is an SseEmitter on an async
+// servlet request, so an idle subscriber holds a socket but no thread. Stored
+// notification batches from the outbox are pushed to the recipient's streams; a
+// reconnecting client sends Last-Event-ID (the last notification id it saw) and
+// gets what it missed replayed from Mongo. Ids are assigned when a notification is
+// queued and the outbox stores it up to max-lag-ms later, so one with a lower id
+// than Last-Event-ID may have been stored after the client saw that; the replay
+// starts max-lag-ms before it and the client skips ids it already has. Heartbeat comments keep proxies from
+// closing idle connections and flush out dead ones.
+@Component
+public class NotificationStreamRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationStreamRegistry.class);
+
+    private static final String EVENT_NAME = "notification";
+
+    @Autowired
+    private NotificationOutbox notificationOutbox;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${highwaylink.notifications.stream.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${highwaylink.notifications.stream.reconnect-ms:5000}")
+    private long reconnectMs;
+
+    @Value("${highwaylink.notifications.stream.replay-limit:50}")
+    private int replayLimit;
+
+    @Value("${highwaylink.notifications.outbox.max-lag-ms:5000}")
+    private long maxLagMs;
+
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        notificationOutbox.addListener(this::publish);
+        meterRegistry.gauge("highwaylink.notifications.stream.connections", subscribers,
+                map -> map.values().stream().mapToInt(Set::size).sum());
+    }
+
+    public SseEmitter subscribe(String userId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Set<SseEmitter> emitters = subscribers.computeIfAbsent(userId, id -> new CopyOnWriteArraySet<>());
+        emitters.add(emitter);
+
+        emitter.onCompletion(() -> unsubscribe(userId, emitter));
+        emitter.onTimeout(() -> unsubscribe(userId, emitter));
+        emitter.onError(e -> unsubscribe(userId, emitter));
+
+        // Registered before the replay so nothing falls in between; the client
+        // ignores ids it already has
+        try {
+            emitter.send(SseEmitter.event().reconnectTime(reconnectMs).comment("connected"));
+            if (lastEventId != null && ObjectId.isValid(lastEventId)) {
+                for (Notification missed : missedSince(userId, new ObjectId(lastEventId))) {
+                    emitter.send(event(missed));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(userId, emitter);
+        }
+        return emitter;
+    }
+
+    private List<Notification> missedSince(String userId, ObjectId lastSeen) {
+        // The lowest id created max-lag-ms before lastSeen: its timestamp, zeros after
+        int from = (int) ((lastSeen.getDate().getTime() - maxLagMs) / 1000);
+        ObjectId replayFrom = new ObjectId(ByteBuffer.allocate(12).putInt(from).array());
+        Query query = Query.query(Criteria.where("userId").is(userId).and("_id").gte(replayFrom))
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(replayLimit);
+        return mongoTemplate.find(query, Notification.class);
+    }
+
+    void publish(List<Notification> batch) {
+        for (Notification notification : batch) {
+            Set<SseEmitter> emitters = subscribers.get(notification.getUserId());
+            if (emitters == null) {
+                continue;
+            }
+            for (SseEmitter emitter : emitters) {
+                send(notification.getUserId(), emitter, event(notification));
+            }
+        }
+    }
+
+    @Scheduled(fixedRateString = "${highwaylink.notifications.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        subscribers.forEach((userId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                send(userId, emitter, SseEmitter.event().comment("heartbeat"));
+            }
+        });
+    }
+
+    private void send(String userId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            logger.debug("Dropping closed notification stream of user {}", userId);
+            unsubscribe(userId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(String userId, SseEmitter emitter) {
+        subscribers.computeIfPresent(userId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private static SseEmitter.SseEventBuilder event(Notification notification) {
+        return SseEmitter.event()
+                .id(notification.getId())
+                .name(EVENT_NAME)
+                .data(notification);
+    }
+}
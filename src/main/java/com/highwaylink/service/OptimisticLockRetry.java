@@ -0,0 +1,64 @@
+package com.highwaylink.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import com.highwaylink.exception.ConflictException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Re-runs a read-modify-write on a versioned document when Mongo rejects the write
+// because someone else saved it first. Backoff doubles per attempt with full jitter;
+// once attempts run out the caller gets a 409. Conflicts and retries are counted per
+// operation (highwaylink.optimistic_lock.conflicts / .retries, tag "method").
+@Component
+public class OptimisticLockRetry {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticLockRetry.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${highwaylink.optimistic-retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${highwaylink.optimistic-retry.initial-backoff-ms:20}")
+    private long initialBackoffMs;
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        long backoff = initialBackoffMs;
+        for (int attempt = 1;; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException e) {
+                meterRegistry.counter("highwaylink.optimistic_lock.conflicts", "method", operation).increment();
+
+                if (attempt >= maxAttempts) {
+                    logger.warn("{} gave up after {} conflicting attempts: {}", operation, attempt, e.getMessage());
+                    throw new ConflictException("The ride was changed by another request, please try again");
+                }
+
+                meterRegistry.counter("highwaylink.optimistic_lock.retries", "method", operation).increment();
+                logger.debug("{} hit a write conflict (attempt {}), retrying", operation, attempt);
+                sleep(ThreadLocalRandom.current().nextLong(backoff + 1));
+                backoff *= 2;
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Request interrupted while retrying, please try again");
+        }
+    }
+}
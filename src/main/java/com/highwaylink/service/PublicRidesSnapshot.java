@@ -0,0 +1,294 @@
+package com.highwaylink.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.highwaylink.DTO.RideDTO;
+import com.highwaylink.model.Ride;
+import com.highwaylink.util.DTOMapper;
+import com.highwaylink.util.PlaceNormalizer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Anonymous GET /api/rides/public is the same for every caller, so its JSON is
+// published ahead of time instead of being queried, mapped and serialized per
+// request. For the unfiltered feed and the busiest corridors (exact normalized
+// origin/destination keys) the publisher writes the identity and gzip encodings
+// to files under directory and memory-maps them. It republishes when
+// RideRouteIndex reports a change (checked every check-interval-ms) and at least
+// every max-age-ms, so owner details follow too. Requests get the encoding they
+// accept, a strong ETag per encoding and a 304 on If-None-Match. The body goes out
+// through Tomcat sendfile (zero-copy) when the connector supports it, otherwise
+// as a channel write of the mapped buffer. Files of the previous publication are
+// kept so in-flight responses can finish.
+@Component
+public class PublicRidesSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublicRidesSnapshot.class);
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private RideRouteIndex rideRouteIndex;
+
+    @Autowired
+    private DTOMapper dtoMapper;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${highwaylink.rides.public-snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${highwaylink.rides.public-snapshot.corridors:20}")
+    private int corridors;
+
+    @Value("${highwaylink.rides.public-snapshot.max-age-ms:60000}")
+    private long maxAgeMs;
+
+    @Value("${highwaylink.rides.public-snapshot.directory:${java.io.tmpdir}/highwaylink-public-rides}")
+    private String directory;
+
+    private volatile Map<String, Snapshot> published = Map.of();
+
+    // Only touched by the scheduler thread
+    private long publishedGeneration = -1;
+    private long publishedAt;
+    private long sequence;
+    private final Deque<List<Path>> retired = new ArrayDeque<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+        try (Stream<Path> leftovers = Files.list(dir)) {
+            leftovers.forEach(PublicRidesSnapshot::deleteQuietly);
+        }
+        meterRegistry.gauge("highwaylink.rides.public_snapshot.corridors", this, s -> s.published.size());
+    }
+
+    @Scheduled(fixedDelayString = "${highwaylink.rides.public-snapshot.check-interval-ms:2000}")
+    public void refresh() {
+        if (!enabled || !rideRouteIndex.isWarm()) {
+            return;
+        }
+        long generation = rideRouteIndex.getGeneration();
+        long now = System.currentTimeMillis();
+        if (generation == publishedGeneration && now - publishedAt < maxAgeMs) {
+            return;
+        }
+        try {
+            publish();
+            publishedGeneration = generation;
+            publishedAt = now;
+        } catch (Exception e) {
+            logger.error("Could not publish the public rides snapshot", e);
+        }
+    }
+
+    // The published snapshot for these filters, or null when there is none
+    // (disabled, cold, or a corridor outside the busiest set)
+    public Snapshot find(String origin, String destination) {
+        return published.get(key(PlaceNormalizer.toKey(origin), PlaceNormalizer.toKey(destination)));
+    }
+
+    public void serve(Snapshot snapshot, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        Encoded body = gzip ? snapshot.gzip : snapshot.identity;
+
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING + ", " + HttpHeaders.AUTHORIZATION);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (new ServletWebRequest(request, response).checkNotModified(body.etag)) {
+            meterRegistry.counter("highwaylink.rides.public_snapshot.served", "result", "not_modified").increment();
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, body.etag);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setContentLengthLong(body.length);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat sends the file itself once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, body.file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, body.length);
+        } else {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            ByteBuffer buffer = body.mapped.duplicate();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        }
+        meterRegistry.counter("highwaylink.rides.public_snapshot.served", "result", gzip ? "gzip" : "identity")
+                .increment();
+    }
+
+    private void publish() throws IOException {
+        List<Ride> all = rideRouteIndex.findBookable(null, null, null, null, null, null, null).orElse(null);
+        if (all == null) {
+            return;
+        }
+        // One mapping pass (owner lookups included) for every corridor
+        List<RideDTO> dtos = dtoMapper.toRideDTOList(all, null, false);
+        Map<String, RideDTO> dtoById = new HashMap<>();
+        dtos.forEach(dto -> dtoById.put(dto.getId(), dto));
+
+        long generation = ++sequence;
+        List<Path> files = new ArrayList<>();
+        Map<String, Snapshot> next = new HashMap<>();
+        next.put(key("", ""), write(dtos, generation, 0, files));
+
+        List<String[]> busiest = rideRouteIndex.busiestRoutes(corridors);
+        for (int i = 0; i < busiest.size(); i++) {
+            String originKey = busiest.get(i)[0];
+            String destinationKey = busiest.get(i)[1];
+            List<Ride> rides = rideRouteIndex
+                    .findBookable(originKey, destinationKey, null, null, null, null, null).orElse(List.of());
+            List<RideDTO> corridor = new ArrayList<>(rides.size());
+            for (Ride ride : rides) {
+                RideDTO dto = dtoById.get(ride.getId());
+                if (dto != null) {
+                    corridor.add(dto);
+                }
+            }
+            next.put(key(originKey, destinationKey), write(corridor, generation, i + 1, files));
+        }
+
+        published = next;
+        retired.addLast(files);
+        while (retired.size() > 2) {
+            retired.removeFirst().forEach(PublicRidesSnapshot::deleteQuietly);
+        }
+        logger.debug("Published public rides snapshot {} ({} rides, {} corridors)", generation, dtos.size(),
+                busiest.size());
+    }
+
+    private Snapshot write(List<RideDTO> rides, long generation, int index, List<Path> files) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(rides);
+        String hash = DigestUtils.md5DigestAsHex(json);
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        }
+
+        String base = generation + "-" + index;
+        Encoded identity = encoded(Paths.get(directory, base + ".json"), json, "\"" + hash + "\"");
+        Encoded gzip = encoded(Paths.get(directory, base + ".json.gz"), compressed.toByteArray(),
+                "\"" + hash + "-gzip\"");
+        files.add(identity.file);
+        files.add(gzip.file);
+        return new Snapshot(identity, gzip);
+    }
+
+    private static Encoded encoded(Path file, byte[] bytes, String etag) throws IOException {
+        Files.write(file, bytes);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, bytes.length);
+            return new Encoded(file, mapped, bytes.length, etag);
+        }
+    }
+
+    // Honours "gzip;q=0" as a refusal; anything else mentioning gzip or * accepts it
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim().replace(" ", "");
+                if (param.matches("q=0(\\.0*)?")) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static String key(String originKey, String destinationKey) {
+        return (originKey != null ? originKey : "") + '\u0000' + (destinationKey != null ? destinationKey : "");
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete snapshot file {}", file, e);
+        }
+    }
+
+    public static final class Snapshot {
+        private final Encoded identity;
+        private final Encoded gzip;
+
+        private Snapshot(Encoded identity, Encoded gzip) {
+            this.identity = identity;
+            this.gzip = gzip;
+        }
+    }
+
+    private static final class Encoded {
+        private final Path file;
+        private final MappedByteBuffer mapped;
+        private final long length;
+        private final String etag;
+
+        private Encoded(Path file, MappedByteBuffer mapped, long length, String etag) {
+            this.file = file;
+            this.mapped = mapped;
+            this.length = length;
+            this.etag = etag;
+        }
+    }
+}
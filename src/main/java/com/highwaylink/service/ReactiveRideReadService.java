@@ -0,0 +1,198 @@
+package com.highwaylink.service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import com.highwaylink.DTO.RideDTO;
+import com.highwaylink.exception.ResourceNotFoundException;
+import com.highwaylink.model.Booking;
+import com.highwaylink.model.Ride;
+import com.highwaylink.model.User;
+import com.highwaylink.repository.ReactiveBookingRepository;
+import com.highwaylink.repository.ReactiveRideRepository;
+import com.highwaylink.repository.ReactiveUserRepository;
+import com.highwaylink.util.DTOMapper;
+import com.highwaylink.util.DateTimeUtil;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Non-blocking read path for the public listing, search and single-ride endpoints.
+// Rides come from RideRouteIndex when it can answer, otherwise from the reactive
+// Mongo driver. Every batch of batch-size rides is joined with its owners (vehicle
+// and rating included) and the viewer's bookings in two concurrent queries, and
+// batches are emitted in order, so a streaming (application/x-ndjson) client gets
+// the first rides while later ones are still being joined. No request thread
+// waits on Mongo.
+@Service
+public class ReactiveRideReadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveRideReadService.class);
+
+    @Autowired
+    private ReactiveRideRepository rideRepository;
+
+    @Autowired
+    private ReactiveUserRepository userRepository;
+
+    @Autowired
+    private ReactiveBookingRepository bookingRepository;
+
+    @Autowired
+    private RideRouteIndex rideRouteIndex;
+
+    @Autowired
+    private DTOMapper dtoMapper;
+
+    @Value("${highwaylink.rides.reactive.batch-size:100}")
+    private int batchSize;
+
+    public Flux<RideDTO> getPublicRides(String origin, String destination, String currentUserId) {
+        logger.info("Fetching public rides - origin: {}, destination: {}", origin, destination);
+
+        Flux<Ride> rides = Flux.defer(() -> rideRouteIndex
+                .findBookable(origin, destination, null, null, null, null, Pageable.unpaged())
+                .map(Flux::fromIterable)
+                .orElseGet(() -> rideRepository.searchBookableRides(origin, destination, null, null, null, null,
+                        null, Pageable.unpaged())));
+
+        return enrich(rides, currentUserId, false);
+    }
+
+    public Flux<RideDTO> searchRides(String origin, String destination, String date, String timeFrom, String timeTo,
+            String vehicleType, String currentUserId, Pageable pageable) {
+        Flux<Ride> rides = Flux.defer(() -> {
+            logger.info(
+                    "Searching rides - origin: {}, destination: {}, date: {}, timeFrom: {}, timeTo: {}, vehicleType: {}",
+                    origin, destination, date, timeFrom, timeTo, vehicleType);
+
+            LocalTime from = (timeFrom != null && !timeFrom.isEmpty()) ? DateTimeUtil.parseTime(timeFrom) : null;
+            LocalTime to = (timeTo != null && !timeTo.isEmpty()) ? DateTimeUtil.parseTime(timeTo) : null;
+
+            Date startFrom = null;
+            Date startBefore = null;
+
+            // A date turns the whole filter into a single startTime range in Asia/Colombo;
+            // without one the time window is applied to the time of day of every date
+            if (date != null && !date.isEmpty()) {
+                LocalDate day = DateTimeUtil.parseDate(date);
+                startFrom = from != null ? DateTimeUtil.toDate(day, from) : DateTimeUtil.startOfDay(day);
+                // timeTo is inclusive at minute precision
+                startBefore = to != null
+                        ? new Date(DateTimeUtil.toDate(day, to).getTime() + 60_000L)
+                        : DateTimeUtil.startOfDay(day.plusDays(1));
+                from = null;
+                to = null;
+            }
+
+            String fromTime = from != null ? from.toString() : null;
+            String toTime = to != null ? to.toString() : null;
+
+            // The route index has no owner data, so vehicle type searches go to Mongo
+            List<Ride> indexed = null;
+            if (vehicleType == null || vehicleType.isEmpty()) {
+                indexed = rideRouteIndex.findBookable(origin, destination, startFrom, startBefore, fromTime, toTime,
+                        pageable).orElse(null);
+            }
+            if (indexed != null) {
+                return Flux.fromIterable(indexed);
+            }
+            return rideRepository.searchBookableRides(origin, destination, startFrom, startBefore, fromTime, toTime,
+                    vehicleType, pageable);
+        });
+
+        return enrich(rides, currentUserId, false);
+    }
+
+    public Mono<RideDTO> getRideById(String id, String viewerId, boolean viewerIsAdmin) {
+        logger.info("Fetching ride with id: {}", id);
+        Flux<Ride> ride = rideRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> {
+                    logger.error("Ride not found with id: {}", id);
+                    return new ResourceNotFoundException("Ride not found with id: " + id);
+                }))
+                .flux();
+        return enrich(ride, viewerId, viewerIsAdmin).next();
+    }
+
+    // Same tag as RideService's listing ETags use: the ride's version and the
+    // owner fields its DTO shows, from two projection reads
+    public Mono<String> rideEtag(String id, String viewerId, boolean viewerIsAdmin) {
+        return rideRepository.findVersionById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Ride not found with id: " + id)))
+                .flatMap(ride -> ownerDetails(ride.getOwnerId())
+                        .map(owner -> RideService.etag(viewerId, viewerIsAdmin, id + ":" + ride.getVersion(),
+                                owner)));
+    }
+
+    private Mono<String> ownerDetails(String ownerId) {
+        if (ownerId == null) {
+            return Mono.just("");
+        }
+        return userRepository.findOwnerDetailsById(ownerId).map(RideService::ownerDetailsOf).defaultIfEmpty("");
+    }
+
+    // Batches keep the $in lists bounded; concatMap keeps the ride order
+    private Flux<RideDTO> enrich(Flux<Ride> rides, String viewerId, boolean viewerIsAdmin) {
+        boolean anonymous = viewerId == null && !viewerIsAdmin;
+        return rides.buffer(batchSize)
+                .concatMap(batch -> Mono.zip(owners(batch), bookings(batch, viewerId, viewerIsAdmin, anonymous))
+                        .flatMapIterable(joined -> {
+                            List<RideDTO> dtos = dtoMapper.toRideDTOList(batch, joined.getT1());
+                            return anonymous ? dtos : DTOMapper.attachBookings(dtos, joined.getT2());
+                        }));
+    }
+
+    private Mono<Map<String, User>> owners(List<Ride> rides) {
+        Set<String> ownerIds = DTOMapper.ownerIds(rides);
+        if (ownerIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return userRepository.findAllById(ownerIds)
+                .collectMap(User::getId)
+                .onErrorResume(e -> {
+                    // Rides without owner details beat no rides, as in DTOMapper
+                    logger.warn("Could not fetch owner details for {} rides: {}", ownerIds.size(), e.getMessage());
+                    return Mono.just(Map.of());
+                });
+    }
+
+    // See DTOMapper.withBookings for who sees which bookings
+    private Mono<List<Booking>> bookings(List<Ride> rides, String viewerId, boolean viewerIsAdmin,
+            boolean anonymous) {
+        if (anonymous) {
+            return Mono.just(List.of());
+        }
+        Set<String> fullAccess = new HashSet<>();
+        Set<String> ownOnly = new HashSet<>();
+        for (Ride ride : rides) {
+            if (ride.getId() == null) continue;
+            if (DTOMapper.seesAllBookings(ride.getOwnerId(), viewerId, viewerIsAdmin)) {
+                fullAccess.add(ride.getId());
+            } else {
+                ownOnly.add(ride.getId());
+            }
+        }
+
+        Flux<Booking> bookings = Flux.empty();
+        if (!fullAccess.isEmpty()) {
+            bookings = bookings.mergeWith(bookingRepository.findByRideIdIn(fullAccess));
+        }
+        if (!ownOnly.isEmpty() && viewerId != null) {
+            bookings = bookings.mergeWith(bookingRepository.findByPassengerIdAndRideIdIn(viewerId, ownOnly));
+        }
+        return bookings.collectList();
+    }
+}
@@ -0,0 +1,418 @@
+package com.highwaylink.service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.highwaylink.exception.ResourceNotFoundException;
+import com.highwaylink.model.Ride;
+import com.highwaylink.model.RideSeries;
+import com.highwaylink.util.DateTimeUtil;
+import com.highwaylink.util.ScheduleRule;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Recurring rides. A ride created with a recurring schedule (see ScheduleRule)
+// starts a series: its id becomes the seriesId, and future instances are
+// materialized as ordinary rides up to horizon-days ahead, so booking, search and
+// the lifecycle work on them unchanged. A RideSeries document per series holds
+// its template, copied from the first ride and replaced only by edits applied to
+// the whole series, and how far the series was materialized, so each day is
+// created once and an instance the owner deleted stays deleted. Instances are written with unordered bulk inserts; (ownerId,
+// startTime) is unique within series, so a rerun or a concurrent run only hits
+// duplicate keys, which are ignored. Created instances are counted in
+// highwaylink.rides.recurrence.materialized.
+@Service
+public class RecurringRideService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecurringRideService.class);
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RideRouteIndex rideRouteIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${highwaylink.rides.recurrence.horizon-days:14}")
+    private int horizonDays;
+
+    @Value("${highwaylink.rides.recurrence.batch-size:500}")
+    private int batchSize;
+
+    // Nightly pass over all series; returns the number of instances created
+    public long materializeAll() {
+        LocalDate through = horizonEnd();
+        Aggregation latestPerSeries = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("seriesId").exists(true)),
+                Aggregation.sort(Sort.Direction.DESC, "startTime"),
+                Aggregation.group("seriesId").first(Aggregation.ROOT).as("latest"),
+                Aggregation.replaceRoot("latest"))
+                .withOptions(AggregationOptions.builder().allowDiskUse(true).build());
+
+        List<Ride> latest = new ArrayList<>();
+        long created = 0;
+        for (Ride ride : mongoTemplate.aggregate(latestPerSeries, Ride.class, Ride.class)) {
+            latest.add(ride);
+            if (latest.size() >= batchSize) {
+                created += materializeBatch(latest, through);
+                latest.clear();
+            }
+        }
+        created += materializeBatch(latest, through);
+        return created;
+    }
+
+    // Fills the horizon of a single series from the given ride, right after the
+    // series was created or edited as a whole; the ride becomes its template
+    public long materialize(Ride template) {
+        LocalDate through = horizonEnd();
+        RideSeries series = mongoTemplate.findById(template.getSeriesId(), RideSeries.class);
+        long created = insert(nextInstances(template, series, through));
+        markMaterialized(List.of(template), through, true);
+        return created;
+    }
+
+    // Each series is materialized from its stored template. A series recorded
+    // before templates were stored adopts its latest instance as the template.
+    private long materializeBatch(List<Ride> latest, LocalDate through) {
+        if (latest.isEmpty()) {
+            return 0;
+        }
+        List<String> seriesIds = new ArrayList<>(latest.size());
+        latest.forEach(ride -> seriesIds.add(ride.getSeriesId()));
+        Map<String, RideSeries> series = new HashMap<>();
+        mongoTemplate.find(Query.query(Criteria.where("_id").in(seriesIds)), RideSeries.class)
+                .forEach(doc -> series.put(doc.getId(), doc));
+
+        List<Ride> stored = new ArrayList<>(latest.size());
+        List<Ride> adopted = new ArrayList<>();
+        List<Ride> instances = new ArrayList<>();
+        for (Ride ride : latest) {
+            RideSeries doc = series.get(ride.getSeriesId());
+            Ride template = templateOf(doc);
+            if (template != null) {
+                stored.add(template);
+            } else {
+                template = ride;
+                adopted.add(ride);
+            }
+            instances.addAll(nextInstances(template, doc, through));
+        }
+        long created = insert(instances);
+        markMaterialized(stored, through, false);
+        markMaterialized(adopted, through, true);
+        return created;
+    }
+
+    // Applies an edit of one instance to every future SCHEDULED instance of its
+    // series that nobody booked or requested: route, price, contact, seats,
+    // schedule and time of day. Such instances that no longer fall on the schedule
+    // are removed; new schedule days are materialized afterwards. Instances with
+    // accepted or pending passengers keep what those passengers signed up for and
+    // are left for the owner to edit one by one.
+    public void applySeriesEdit(String rideId) {
+        Ride edited = mongoTemplate.findById(rideId, Ride.class);
+        if (edited == null) {
+            throw new ResourceNotFoundException("Ride not found");
+        }
+        if (edited.getSeriesId() == null || edited.getStartTime() == null) {
+            return;
+        }
+
+        LocalTime time = toZoned(edited.getStartTime()).toLocalTime();
+        ScheduleRule rule = ScheduleRule.parse(edited.getSchedule(), toZoned(edited.getStartTime()).toLocalDate());
+        RideSeries series = mongoTemplate.findById(edited.getSeriesId(), RideSeries.class);
+
+        Query future = Query.query(Criteria.where("seriesId").is(edited.getSeriesId())
+                .and("_id").ne(edited.getId())
+                .and("status").is("SCHEDULED")
+                .and("startTime").gt(new Date()));
+        List<Ride> instances = mongoTemplate.find(future, Ride.class);
+        if (instances.isEmpty()) {
+            materializeEdit(edited, rule, series);
+            return;
+        }
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ride.class);
+        List<String> touched = new ArrayList<>();
+        int booked = 0;
+        for (Ride instance : instances) {
+            if (!isEmpty(instance.getAcceptedPassengers()) || !isEmpty(instance.getRequests())) {
+                booked++;
+                continue;
+            }
+            LocalDate date = toZoned(instance.getStartTime()).toLocalDate();
+            // The version guard also keeps out instances booked since they were read
+            Query guard = Query.query(Criteria.where("_id").is(instance.getId())
+                    .and("version").is(instance.getVersion()));
+
+            if (rule == null || !rule.occursOn(date)) {
+                bulk.remove(guard);
+                touched.add(instance.getId());
+                continue;
+            }
+
+            Update update = new Update()
+                    .set("origin", edited.getOrigin())
+                    .set("originKey", edited.getOriginKey())
+                    .set("originSuffixes", edited.getOriginSuffixes())
+                    .set("destination", edited.getDestination())
+                    .set("destinationKey", edited.getDestinationKey())
+                    .set("destinationSuffixes", edited.getDestinationSuffixes())
+                    .set("pricePerSeat", edited.getPricePerSeat())
+                    .set("ownerContact", edited.getOwnerContact())
+                    .set("schedule", edited.getSchedule())
+                    .set("startTime", DateTimeUtil.toDate(date, time))
+                    .inc("version", 1);
+            if (edited.getTotalSeats() != null && instance.getTotalSeats() != null) {
+                int taken = instance.getTotalSeats() - valueOf(instance.getSeatsAvailable());
+                update.set("totalSeats", edited.getTotalSeats())
+                        .set("seatsAvailable", Math.max(0, edited.getTotalSeats() - taken));
+            }
+            bulk.updateOne(guard, update);
+            touched.add(instance.getId());
+        }
+
+        if (touched.isEmpty()) {
+            logger.info("Edit of ride {} left all {} booked future instances of series {} unchanged", rideId, booked,
+                    edited.getSeriesId());
+            materializeEdit(edited, rule, series);
+            return;
+        }
+
+        try {
+            bulk.execute();
+        } catch (BulkOperationException e) {
+            // Version conflicts just don't match; this is e.g. a time clash with another ride
+            logger.warn("Series {} edit skipped {} instances: {}", edited.getSeriesId(), e.getErrors().size(),
+                    e.getErrors().get(0).getMessage());
+        }
+        refreshIndex(touched);
+        logger.info("Applied edit of ride {} to {} future instances of series {}, {} booked ones kept", rideId,
+                touched.size(), edited.getSeriesId(), booked);
+
+        materializeEdit(edited, rule, series);
+    }
+
+    // Days the new schedule adds within the horizon already materialized, then the
+    // rest of the horizon. Days the old schedule had keep whatever instance they
+    // have now, or none if the owner deleted it.
+    private void materializeEdit(Ride edited, ScheduleRule rule, RideSeries series) {
+        if (rule != null && series != null && series.getMaterializedThrough() != null) {
+            LocalDate start = toZoned(edited.getStartTime()).toLocalDate();
+            ScheduleRule previous = ScheduleRule.parse(series.getSchedule(), start);
+            LocalDate today = LocalDate.now(DateTimeUtil.ZONE);
+            insert(instancesBetween(edited, rule, previous, today, LocalDate.parse(series.getMaterializedThrough())));
+        }
+        materialize(edited);
+    }
+
+    // Instances from the day after the template or after the series was last
+    // materialized through (whichever is later, and not before today) through the
+    // horizon
+    private List<Ride> nextInstances(Ride template, RideSeries series, LocalDate through) {
+        if (template.getStartTime() == null || template.getOwnerId() == null) {
+            return List.of();
+        }
+        ZonedDateTime start = toZoned(template.getStartTime());
+        ScheduleRule rule = ScheduleRule.parse(template.getSchedule(), start.toLocalDate());
+        if (rule == null) {
+            return List.of();
+        }
+
+        LocalDate from = start.toLocalDate().plusDays(1);
+        if (series != null && series.getMaterializedThrough() != null) {
+            LocalDate done = LocalDate.parse(series.getMaterializedThrough());
+            if (!from.isAfter(done)) {
+                from = done.plusDays(1);
+            }
+        }
+        LocalDate today = LocalDate.now(DateTimeUtil.ZONE);
+        if (from.isBefore(today)) {
+            from = today;
+        }
+        return instancesBetween(template, rule, null, from, through);
+    }
+
+    // Instances on the days from..through the rule has and except (if any) hasn't,
+    // skipping start times the owner already has a ride at
+    private List<Ride> instancesBetween(Ride template, ScheduleRule rule, ScheduleRule except, LocalDate from,
+            LocalDate through) {
+        if (template.getStartTime() == null || template.getOwnerId() == null) {
+            return List.of();
+        }
+        LocalTime time = toZoned(template.getStartTime()).toLocalTime();
+
+        List<Date> candidates = new ArrayList<>();
+        Date now = new Date();
+        for (LocalDate date = from; !date.isAfter(through); date = date.plusDays(1)) {
+            Date startTime = DateTimeUtil.toDate(date, time);
+            if (rule.occursOn(date) && (except == null || !except.occursOn(date)) && startTime.after(now)) {
+                candidates.add(startTime);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        Query existing = Query.query(Criteria.where("ownerId").is(template.getOwnerId())
+                .and("startTime").in(candidates));
+        existing.fields().include("startTime");
+        Set<Date> taken = new HashSet<>();
+        mongoTemplate.find(existing, Ride.class).forEach(ride -> taken.add(ride.getStartTime()));
+
+        List<Ride> instances = new ArrayList<>();
+        for (Date startTime : candidates) {
+            if (!taken.contains(startTime)) {
+                instances.add(newInstance(template, startTime));
+            }
+        }
+        return instances;
+    }
+
+    // Records how far each series is materialized and, for a series creation or
+    // edit, stores the ride as its template
+    private void markMaterialized(List<Ride> templates, LocalDate through, boolean replaceTemplate) {
+        if (templates.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RideSeries.class);
+        for (Ride template : templates) {
+            Update update = new Update().max("materializedThrough", through.toString());
+            if (replaceTemplate) {
+                update.set("ownerId", template.getOwnerId())
+                        .set("ownerName", template.getOwnerName())
+                        .set("ownerContact", template.getOwnerContact())
+                        .set("origin", template.getOrigin())
+                        .set("destination", template.getDestination())
+                        .set("startTime", template.getStartTime())
+                        .set("totalSeats", template.getTotalSeats())
+                        .set("pricePerSeat", template.getPricePerSeat())
+                        .set("schedule", template.getSchedule());
+            }
+            bulk.upsert(Query.query(Criteria.where("_id").is(template.getSeriesId())), update);
+        }
+        bulk.execute();
+    }
+
+    // The stored template as a ride to copy instances from; null if none is stored
+    private static Ride templateOf(RideSeries series) {
+        if (series == null || series.getOwnerId() == null || series.getStartTime() == null) {
+            return null;
+        }
+        Ride template = new Ride();
+        template.setSeriesId(series.getId());
+        template.setOwnerId(series.getOwnerId());
+        template.setOwnerName(series.getOwnerName());
+        template.setOwnerContact(series.getOwnerContact());
+        template.setOrigin(series.getOrigin());
+        template.setDestination(series.getDestination());
+        template.setStartTime(series.getStartTime());
+        template.setTotalSeats(series.getTotalSeats());
+        template.setPricePerSeat(series.getPricePerSeat());
+        template.setSchedule(series.getSchedule());
+        return template;
+    }
+
+    private Ride newInstance(Ride template, Date startTime) {
+        Ride ride = new Ride();
+        // Ids and versions are set here because bulk inserts don't assign them
+        ride.setId(new ObjectId().toHexString());
+        ride.setVersion(0L);
+        ride.setSeriesId(template.getSeriesId());
+        ride.setOwnerId(template.getOwnerId());
+        ride.setOwnerName(template.getOwnerName());
+        ride.setOwnerContact(template.getOwnerContact());
+        ride.setOrigin(template.getOrigin());
+        ride.setDestination(template.getDestination());
+        ride.setStartTime(startTime);
+        ride.setTotalSeats(template.getTotalSeats());
+        ride.setSeatsAvailable(template.getTotalSeats());
+        ride.setPricePerSeat(template.getPricePerSeat());
+        ride.setSchedule(template.getSchedule());
+        ride.setStatus("SCHEDULED");
+        return ride;
+    }
+
+    private long insert(List<Ride> instances) {
+        if (instances.isEmpty()) {
+            return 0;
+        }
+        List<Ride> written = new ArrayList<>(instances);
+        long inserted;
+        try {
+            inserted = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Ride.class)
+                    .insert(instances).execute().getInsertedCount();
+        } catch (BulkOperationException e) {
+            boolean onlyDuplicates = e.getErrors().stream().allMatch(error -> error.getCode() == DUPLICATE_KEY);
+            if (!onlyDuplicates) {
+                throw e;
+            }
+            inserted = e.getResult().getInsertedCount();
+            Set<Integer> failed = new HashSet<>();
+            e.getErrors().forEach(error -> failed.add(error.getIndex()));
+            written.clear();
+            for (int i = 0; i < instances.size(); i++) {
+                if (!failed.contains(i)) {
+                    written.add(instances.get(i));
+                }
+            }
+        }
+        written.forEach(rideRouteIndex::update);
+        meterRegistry.counter("highwaylink.rides.recurrence.materialized").increment(inserted);
+        return inserted;
+    }
+
+    private void refreshIndex(List<String> ids) {
+        Set<String> remaining = new HashSet<>(ids);
+        for (Ride ride : mongoTemplate.find(Query.query(Criteria.where("_id").in(ids)), Ride.class)) {
+            rideRouteIndex.update(ride);
+            remaining.remove(ride.getId());
+        }
+        remaining.forEach(rideRouteIndex::remove);
+    }
+
+    private LocalDate horizonEnd() {
+        return LocalDate.now(DateTimeUtil.ZONE).plusDays(horizonDays);
+    }
+
+    private static ZonedDateTime toZoned(Date date) {
+        return date.toInstant().atZone(DateTimeUtil.ZONE);
+    }
+
+    private static boolean isEmpty(List<String> ids) {
+        return ids == null || ids.isEmpty();
+    }
+
+    private static int valueOf(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -0,0 +1,75 @@
+package com.highwaylink.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import com.highwaylink.exception.ResourceNotFoundException;
+import com.highwaylink.model.User;
+import com.highwaylink.repository.UserRepository;
+
+// User lookups memoized for the duration of the current HTTP request, so a user is
+// read at most once per request no matter how many layers (or optimistic-lock
+// retries) ask for it. Outside a request (scheduled jobs) every call hits Mongo.
+@Component
+public class RequestUserLookup {
+
+    private static final String ATTRIBUTE = RequestUserLookup.class.getName();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    public Optional<User> findById(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        Map<String, User> memo = memo();
+        if (memo == null) {
+            return userRepository.findById(id);
+        }
+        User user = memo.get("id:" + id);
+        if (user == null) {
+            user = userRepository.findById(id).orElse(null);
+            remember(memo, user);
+        }
+        return Optional.ofNullable(user);
+    }
+
+    public User getByEmail(String email) {
+        Map<String, User> memo = memo();
+        User user = memo != null ? memo.get("email:" + email) : null;
+        if (user == null) {
+            user = userRepository.findByEmail(email)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+            remember(memo, user);
+        }
+        return user;
+    }
+
+    private static void remember(Map<String, User> memo, User user) {
+        if (memo != null && user != null) {
+            memo.put("id:" + user.getId(), user);
+            memo.put("email:" + user.getEmail(), user);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, User> memo() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, User> memo = (Map<String, User>) attributes.getAttribute(ATTRIBUTE,
+                RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = new HashMap<>();
+            attributes.setAttribute(ATTRIBUTE, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return memo;
+    }
+}
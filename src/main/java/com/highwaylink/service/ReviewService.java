@@ -11,11 +11,14 @@ import com.highwaylink.exception.BadRequestException;
 import com.highwaylink.exception.ResourceNotFoundException;
 import com.highwaylink.model.Review;
 import com.highwaylink.model.Ride;
+import com.highwaylink.repository.ReactiveReviewRepository;
 import com.highwaylink.repository.ReviewRepository;
 
 import com.highwaylink.repository.RideRepository;
 import com.highwaylink.model.User;
 
+import reactor.core.publisher.Flux;
+
 @Service
 public class ReviewService {
 
@@ -24,6 +27,9 @@ public class ReviewService {
     @Autowired
     private ReviewRepository reviewRepository;
 
+    @Autowired
+    private ReactiveReviewRepository reactiveReviewRepository;
+
     @Autowired
     private RideRepository rideRepository;
 
@@ -63,8 +69,10 @@ public class ReviewService {
         Review review = new Review(rideId, reviewerId, driverId, rating, comment);
         Review savedReview = reviewRepository.save(review);
 
-        // Update Driver's Average Rating
-        updateDriverAverageRating(driverId);
+        // Fold the rating into the driver's running aggregate
+        if (!userRepository.applyRating(driverId, rating)) {
+            logger.warn("Review {} saved for unknown driver {}", savedReview.getId(), driverId);
+        }
 
         // Notify Driver
         try {
@@ -77,31 +85,10 @@ public class ReviewService {
         return savedReview;
     }
 
-    private void updateDriverAverageRating(String driverId) {
-        try {
-            List<Review> reviews = reviewRepository.findByDriverId(driverId);
-            double avg = reviews.stream()
-                    .mapToInt(Review::getRating)
-                    .average()
-                    .orElse(0.0);
-
-            // Round to 1 decimal place
-            avg = Math.round(avg * 10.0) / 10.0;
-
-            com.highwaylink.model.User driver = userRepository.findById(driverId)
-                    .orElseThrow(() -> new ResourceNotFoundException("Driver not found"));
-
-            driver.setAverageRating(avg);
-            userRepository.save(driver);
-            logger.info("Updated average rating for driver {} to {}", driverId, avg);
-        } catch (Exception e) {
-            logger.error("Failed to update average rating for driver {}", driverId, e);
-        }
-    }
-
-    public List<Review> getReviewsForDriver(String driverId) {
+    // Streamed from the reactive driver; a driver's reviews grow without bound
+    public Flux<Review> getReviewsForDriver(String driverId) {
         logger.info("Fetching reviews for driver {}", driverId);
-        return reviewRepository.findByDriverId(driverId);
+        return reactiveReviewRepository.findByDriverId(driverId);
     }
 
     public List<Review> getReviewsForRide(String rideId) {
@@ -110,15 +97,10 @@ public class ReviewService {
     }
 
     public double getAverageRatingForDriver(String driverId) {
-        List<Review> reviews = reviewRepository.findByDriverId(driverId);
-        if (reviews.isEmpty()) {
-            return 0.0;
-        }
-        double avg = reviews.stream()
-                .mapToInt(Review::getRating)
-                .average()
+        return userRepository.findById(driverId)
+                .map(User::getAverageRating)
+                .filter(java.util.Objects::nonNull)
                 .orElse(0.0);
-        return Math.round(avg * 10.0) / 10.0;
     }
 
     public List<Review> getReviewsByReviewer(String reviewerId) {
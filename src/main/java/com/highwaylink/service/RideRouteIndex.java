@@ -0,0 +1,342 @@
+package com.highwaylink.service;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import com.highwaylink.model.Ride;
+import com.highwaylink.repository.RideRepository;
+import com.highwaylink.util.DateTimeUtil;
+import com.highwaylink.util.PlaceNormalizer;
+
+// In-process copy of the bookable ride set (active, seatsAvailable > 0), grouped by
+// normalized origin -> destination word suffixes (see PlaceNormalizer) and ordered
+// by startTime; a ride is filed under every pair of its suffixes. RideService pushes every
+// ride it saves or deletes through update()/remove(); resync() reloads from Mongo to
+// pick up writes made by other instances. Until the first load completes the index
+// is cold and callers fall back to the repository.
+@Component
+public class RideRouteIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideRouteIndex.class);
+
+    private static final Comparator<Ride> BY_START_TIME = Comparator
+            .comparing(Ride::getStartTime, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Ride::getId);
+
+    private static final DateTimeFormatter TIME_OF_DAY = DateTimeFormatter.ofPattern("HH:mm")
+            .withZone(DateTimeUtil.ZONE);
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // origin word suffix -> destination word suffix -> rides by startTime
+    private NavigableMap<String, NavigableMap<String, TreeSet<Ride>>> routes = new TreeMap<>();
+    private Map<String, Ride> ridesById = new HashMap<>();
+    private volatile boolean warm = false;
+    // Bumped on every change to the bookable set, so readers can tell when it moved
+    private final AtomicLong generation = new AtomicLong();
+    // Generation of the last local update()/remove() per ride, so resync() can tell
+    // which rides changed while it was reading Mongo. Pruned by every resync.
+    private Map<String, Long> changedAt = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        try {
+            resync();
+        } catch (Exception e) {
+            logger.error("Could not load ride route index, serving rides from Mongo", e);
+        }
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ridesById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Reloads the bookable set from Mongo and returns how many rides differed from
+    // what the index held (added, removed, or changed seats/startTime/route). The
+    // read isn't atomic with local writes: a ride updated or removed here while it
+    // ran keeps its local state unless Mongo returned a newer version of it.
+    public int resync() {
+        long startedAt = generation.get();
+        List<Ride> bookable = rideRepository.findByActiveTrueAndSeatsAvailableGreaterThan(0);
+
+        NavigableMap<String, NavigableMap<String, TreeSet<Ride>>> freshRoutes = new TreeMap<>();
+        Map<String, Ride> freshById = new HashMap<>();
+        for (Ride ride : bookable) {
+            if (ride.getId() != null) {
+                freshById.put(ride.getId(), ride);
+                insert(freshRoutes, ride);
+            }
+        }
+
+        int drift;
+        lock.writeLock().lock();
+        try {
+            Map<String, Long> stillChanging = new HashMap<>();
+            changedAt.forEach((id, changed) -> {
+                if (changed > startedAt) {
+                    stillChanging.put(id, changed);
+                    keepLocal(id, freshRoutes, freshById);
+                }
+            });
+            changedAt = stillChanging;
+
+            drift = warm ? countDrift(ridesById, freshById) : 0;
+            routes = freshRoutes;
+            ridesById = freshById;
+            if (!warm || drift > 0) {
+                generation.incrementAndGet();
+            }
+            warm = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (drift > 0) {
+            logger.warn("Ride route index was out of sync with Mongo by {} rides, reloaded", drift);
+        }
+        logger.debug("Ride route index holds {} bookable rides", freshById.size());
+        return drift;
+    }
+
+    // Caller holds the write lock
+    private void keepLocal(String id, NavigableMap<String, NavigableMap<String, TreeSet<Ride>>> freshRoutes,
+            Map<String, Ride> freshById) {
+        Ride local = ridesById.get(id);
+        Ride read = freshById.get(id);
+        if (read != null && local != null && version(read) > version(local)) {
+            return;
+        }
+        if (read != null) {
+            freshById.remove(id);
+            delete(freshRoutes, read);
+        }
+        if (local != null) {
+            freshById.put(id, local);
+            insert(freshRoutes, local);
+        }
+    }
+
+    private static long version(Ride ride) {
+        return ride.getVersion() != null ? ride.getVersion() : -1;
+    }
+
+    // Applies a ride that was just written: indexed if bookable, dropped otherwise
+    public void update(Ride ride) {
+        if (ride == null || ride.getId() == null) return;
+        lock.writeLock().lock();
+        try {
+            Ride previous = ridesById.remove(ride.getId());
+            if (previous != null) {
+                delete(routes, previous);
+            }
+            if (isBookable(ride)) {
+                ridesById.put(ride.getId(), ride);
+                insert(routes, ride);
+            }
+            changedAt.put(ride.getId(), generation.incrementAndGet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String rideId) {
+        if (rideId == null) return;
+        lock.writeLock().lock();
+        try {
+            Ride previous = ridesById.remove(rideId);
+            if (previous != null) {
+                delete(routes, previous);
+            }
+            changedAt.put(rideId, generation.incrementAndGet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Same contract as RideRepositoryCustom.searchBookableRides without the vehicle
+    // type filter. Empty when the index is cold.
+    public Optional<List<Ride>> findBookable(String origin, String destination, Date startFrom, Date startBefore,
+            String timeFrom, String timeTo, Pageable pageable) {
+        if (!warm) {
+            return Optional.empty();
+        }
+
+        String originKey = PlaceNormalizer.toKey(origin);
+        String destinationKey = PlaceNormalizer.toKey(destination);
+
+        List<Ride> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            // A ride is filed under several suffix pairs; a prefix can hit more than one
+            Set<String> seen = new HashSet<>();
+            int routeCount = 0;
+            for (NavigableMap<String, TreeSet<Ride>> byDestination : withPrefix(routes, originKey).values()) {
+                for (TreeSet<Ride> rides : withPrefix(byDestination, destinationKey).values()) {
+                    routeCount++;
+                    for (Ride ride : rides) {
+                        if (matchesTime(ride, startFrom, startBefore, timeFrom, timeTo) && seen.add(ride.getId())) {
+                            matches.add(ride);
+                        }
+                    }
+                }
+            }
+            // A single route is already in startTime order
+            if (routeCount > 1) {
+                matches.sort(BY_START_TIME);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (pageable != null && pageable.isPaged()) {
+            int from = (int) Math.min(pageable.getOffset(), matches.size());
+            int to = Math.min(from + pageable.getPageSize(), matches.size());
+            matches = new ArrayList<>(matches.subList(from, to));
+        }
+        return Optional.of(matches);
+    }
+
+    // The (originKey, destinationKey) pairs with the most bookable rides, busiest first
+    public List<String[]> busiestRoutes(int limit) {
+        Map<List<String>, Integer> counts = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            for (Ride ride : ridesById.values()) {
+                counts.merge(List.of(keyOf(ride.getOrigin()), keyOf(ride.getDestination())), 1, Integer::sum);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Map.Entry<List<String>, Integer>> sizes = new ArrayList<>(counts.entrySet());
+        sizes.sort(Map.Entry.<List<String>, Integer>comparingByValue().reversed());
+
+        List<String[]> busiest = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, sizes.size()); i++) {
+            busiest.add(sizes.get(i).getKey().toArray(new String[0]));
+        }
+        return busiest;
+    }
+
+    private static boolean isBookable(Ride ride) {
+        return ride.isActive() && ride.getSeatsAvailable() != null && ride.getSeatsAvailable() > 0;
+    }
+
+    private static boolean matchesTime(Ride ride, Date startFrom, Date startBefore, String timeFrom, String timeTo) {
+        Date start = ride.getStartTime();
+        if (startFrom != null && (start == null || start.before(startFrom))) return false;
+        if (startBefore != null && (start == null || !start.before(startBefore))) return false;
+        if (timeFrom != null || timeTo != null) {
+            if (start == null) return false;
+            String rideTime = TIME_OF_DAY.format(start.toInstant());
+            if (timeFrom != null && rideTime.compareTo(timeFrom) < 0) return false;
+            if (timeTo != null && rideTime.compareTo(timeTo) > 0) return false;
+        }
+        return true;
+    }
+
+    private static <V> NavigableMap<String, V> withPrefix(NavigableMap<String, V> map, String prefix) {
+        if (prefix == null || prefix.isEmpty()) return map;
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static void insert(NavigableMap<String, NavigableMap<String, TreeSet<Ride>>> routes, Ride ride) {
+        for (String originSuffix : suffixesOf(ride.getOrigin())) {
+            NavigableMap<String, TreeSet<Ride>> byDestination = routes.computeIfAbsent(originSuffix,
+                    k -> new TreeMap<>());
+            for (String destinationSuffix : suffixesOf(ride.getDestination())) {
+                byDestination.computeIfAbsent(destinationSuffix, k -> new TreeSet<>(BY_START_TIME)).add(ride);
+            }
+        }
+    }
+
+    private static void delete(NavigableMap<String, NavigableMap<String, TreeSet<Ride>>> routes, Ride ride) {
+        for (String originSuffix : suffixesOf(ride.getOrigin())) {
+            NavigableMap<String, TreeSet<Ride>> byDestination = routes.get(originSuffix);
+            if (byDestination == null) continue;
+            for (String destinationSuffix : suffixesOf(ride.getDestination())) {
+                TreeSet<Ride> rides = byDestination.get(destinationSuffix);
+                if (rides == null) continue;
+                rides.remove(ride);
+                if (rides.isEmpty()) {
+                    byDestination.remove(destinationSuffix);
+                }
+            }
+            if (byDestination.isEmpty()) {
+                routes.remove(originSuffix);
+            }
+        }
+    }
+
+    // Places without words are filed under "" so unfiltered listings still see them
+    private static List<String> suffixesOf(String place) {
+        List<String> suffixes = PlaceNormalizer.wordSuffixes(place);
+        return suffixes.isEmpty() ? List.of("") : suffixes;
+    }
+
+    private static String keyOf(String place) {
+        String key = PlaceNormalizer.toKey(place);
+        return key != null ? key : "";
+    }
+
+    private static int countDrift(Map<String, Ride> indexed, Map<String, Ride> actual) {
+        int drift = 0;
+        for (Map.Entry<String, Ride> entry : actual.entrySet()) {
+            Ride held = indexed.get(entry.getKey());
+            if (held == null || !sameListing(held, entry.getValue())) {
+                drift++;
+            }
+        }
+        for (String id : indexed.keySet()) {
+            if (!actual.containsKey(id)) {
+                drift++;
+            }
+        }
+        return drift;
+    }
+
+    private static boolean sameListing(Ride a, Ride b) {
+        return Objects.equals(a.getSeatsAvailable(), b.getSeatsAvailable())
+                && Objects.equals(a.getStartTime(), b.getStartTime())
+                && Objects.equals(a.getOrigin(), b.getOrigin())
+                && Objects.equals(a.getDestination(), b.getDestination())
+                && Objects.equals(a.getStatus(), b.getStatus());
+    }
+}
@@ -1,277 +1,255 @@
 package com.highwaylink.service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.TreeMap;
 
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
 import com.highwaylink.DTO.MyRidesResponseDTO;
 import com.highwaylink.DTO.RideCreateRequestDTO;
 import com.highwaylink.DTO.RideDTO;
+import com.highwaylink.DTO.RidePageDTO;
 import com.highwaylink.exception.BadRequestException;
 import com.highwaylink.exception.ResourceNotFoundException;
 import com.highwaylink.exception.UnauthorizedException;
 import com.highwaylink.model.Ride;
 import com.highwaylink.model.User;
+import com.highwaylink.repository.BookingRepository;
+import com.highwaylink.repository.PassengerRideBuckets;
 import com.highwaylink.repository.RideRepository;
 import com.highwaylink.repository.UserRepository;
 import com.highwaylink.util.DTOMapper;
+import com.highwaylink.util.KeysetCursor;
+import com.highwaylink.util.ScheduleRule;
 
 @Service
 public class RideService {
 
     private static final Logger logger = LoggerFactory.getLogger(RideService.class);
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     @Autowired
     private RideRepository rideRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private DTOMapper dtoMapper;
 
     @Autowired
-    private UserService userService;
+    private NotificationService notificationService;
 
     @Autowired
-    private DTOMapper dtoMapper;
+    private RideRouteIndex rideRouteIndex;
 
     @Autowired
-    private ReviewService reviewService;
+    private OptimisticLockRetry optimisticLockRetry;
 
     @Autowired
-    private NotificationService notificationService;
+    private BookingRepository bookingRepository;
 
-    // Helper method to enrich RideDTO with owner rating
-    private RideDTO enrichWithOwnerRating(RideDTO rideDTO) {
-        if (rideDTO != null && rideDTO.getOwnerId() != null) {
+    @Autowired
+    private UserRepository userRepository;
 
-            double rating = reviewService.getAverageRatingForDriver(rideDTO.getOwnerId());
-            rideDTO.setOwnerRating(rating);
-        }
-        return rideDTO;
-    }
+    @Autowired
+    private RequestUserLookup requestUserLookup;
 
     @Autowired
-    private com.highwaylink.repository.ReviewRepository reviewRepository;
-
-    // Helper method to enrich a list of RideDTOs
-    private List<RideDTO> enrichListWithOwnerRating(List<RideDTO> rideDTOs) {
-        if (rideDTOs != null && !rideDTOs.isEmpty()) {
-            java.util.Set<String> ownerIds = rideDTOs.stream()
-                    .map(RideDTO::getOwnerId)
-                    .collect(Collectors.toSet());
-
-            if (!ownerIds.isEmpty()) {
-                // Fetch ALL reviews for these drivers (Better accuracy than User.averageRating)
-                List<com.highwaylink.model.Review> allReviews = reviewRepository.findByDriverIdIn(ownerIds);
-
-                // Group reviews by driverId
-                java.util.Map<String, List<com.highwaylink.model.Review>> reviewsByDriver = allReviews.stream()
-                        .collect(Collectors.groupingBy(com.highwaylink.model.Review::getDriverId));
-
-                // Calculate averages
-                java.util.Map<String, Double> ratingMap = new java.util.HashMap<>();
-                for (String ownerId : ownerIds) {
-                    List<com.highwaylink.model.Review> driverReviews = reviewsByDriver.get(ownerId);
-                    if (driverReviews != null && !driverReviews.isEmpty()) {
-                        double avg = driverReviews.stream().mapToInt(com.highwaylink.model.Review::getRating).average()
-                                .orElse(0.0);
-                        ratingMap.put(ownerId, Math.round(avg * 10.0) / 10.0);
-                    } else {
-                        ratingMap.put(ownerId, 0.0);
-                    }
-                }
+    private EarningsService earningsService;
 
-                rideDTOs.forEach(dto -> {
-                    dto.setOwnerRating(ratingMap.getOrDefault(dto.getOwnerId(), 0.0));
-                });
-            }
-        }
-        return rideDTOs;
+    @Autowired
+    private RecurringRideService recurringRideService;
+
+    // Keyset-paginated, newest first: every page costs the same however deep it is
+    public RidePageDTO getAllRides(String cursor, int size, boolean includeTotal, String viewerId,
+            boolean viewerIsAdmin) {
+        int limit = pageSize(size);
+        logger.info("Fetching all rides - cursor: {}, size: {}", cursor, limit);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<Ride> rides = rideRepository.findPageBefore(position.getKey(), position.getId(), limit + 1);
+
+        String nextCursor = null;
+        if (rides.size() > limit) {
+            rides = rides.subList(0, limit);
+            Ride last = rides.get(limit - 1);
+            nextCursor = KeysetCursor.encode(last.getCreatedAt(), last.getId());
+        }
+        Long total = includeTotal ? rideRepository.estimatedCount() : null;
+        return new RidePageDTO(dtoMapper.toRideDTOList(rides, viewerId, viewerIsAdmin), nextCursor, total);
     }
 
-    public List<RideDTO> getPublicRides(String origin, String destination, String currentUserId) {
-        logger.info("Fetching public rides - origin: {}, destination: {}", origin, destination);
+    // The owner's rides by start time, latest first, keyset-paginated
+    public RidePageDTO getMyOffers(String ownerId, String cursor, int size, boolean includeTotal) {
+        int limit = pageSize(size);
+        logger.info("Fetching rides for owner: {} - cursor: {}, size: {}", ownerId, cursor, limit);
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<Ride> rides = rideRepository.findOwnerPageBefore(ownerId, position.getKey(), position.getId(), limit + 1);
+
+        String nextCursor = null;
+        if (rides.size() > limit) {
+            rides = rides.subList(0, limit);
+            Ride last = rides.get(limit - 1);
+            nextCursor = KeysetCursor.encode(last.getStartTime(), last.getId());
+        }
+        Long total = includeTotal ? rideRepository.countByOwnerId(ownerId) : null;
+        return new RidePageDTO(dtoMapper.toRideDTOList(rides, ownerId, false), nextCursor, total);
+    }
 
-        List<Ride> rides;
+    private static int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
 
-        if (origin != null && !origin.isEmpty() && destination != null && !destination.isEmpty()) {
-            rides = rideRepository
-                    .findByOriginContainingIgnoreCaseAndDestinationContainingIgnoreCaseAndActiveTrueAndSeatsAvailableGreaterThan(
-                            origin,
-                            destination, 0);
-        } else if (origin != null && !origin.isEmpty()) {
-            rides = rideRepository.findByOriginContainingIgnoreCaseAndActiveTrueAndSeatsAvailableGreaterThan(origin, 0);
-        } else if (destination != null && !destination.isEmpty()) {
-            rides = rideRepository
-                    .findByDestinationContainingIgnoreCaseAndActiveTrueAndSeatsAvailableGreaterThan(destination, 0);
-        } else {
-            rides = rideRepository.findByActiveTrueAndSeatsAvailableGreaterThan(0);
+    // Offset pages for search and my-rides, with the size clamped like the keyset pages
+    public static Pageable pageRequest(int page, int size) {
+        if (page < 0) {
+            throw new BadRequestException("Page must not be negative");
         }
+        return PageRequest.of(page, pageSize(size));
+    }
 
-        logger.info("Found {} public rides", rides.size());
-        return enrichListWithOwnerRating(dtoMapper.toRideDTOList(rides));
+    // Strong ETags for ride reads, computed from ride versions and the owner
+    // fields the DTOs show (projections only), so a matching If-None-Match is
+    // answered before any DTO mapping or booking lookup. Every ride and booking
+    // change in this service bumps the ride's @Version; reviews and profile edits
+    // change the owner's rating, gender or vehicle without touching the ride, so
+    // those fields are tagged directly. DTOs are viewer-specific, so the viewer is
+    // part of the tag. Single rides are tagged in ReactiveRideReadService.rideEtag.
+    public String allRidesEtag(String cursor, int size, boolean includeTotal, String viewerId,
+            boolean viewerIsAdmin) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<Ride> page = rideRepository.findPageVersionsBefore(position.getKey(), position.getId(),
+                pageSize(size) + 1);
+        String total = includeTotal ? String.valueOf(rideRepository.estimatedCount()) : "";
+        return etag(viewerId, viewerIsAdmin, versionsOf(page), ownersOf(DTOMapper.ownerIds(page)), total);
     }
 
-    public List<RideDTO> searchRides(String origin, String destination, String date, String timeFrom, String timeTo,
-            String vehicleType, String currentUserId) {
-        logger.info(
-                "Searching rides - origin: {}, destination: {}, date: {}, timeFrom: {}, timeTo: {}, vehicleType: {}",
-                origin, destination, date, timeFrom, timeTo, vehicleType);
+    public String myOffersEtag(String ownerId, String cursor, int size, boolean includeTotal) {
+        KeysetCursor position = KeysetCursor.decode(cursor);
+        List<Ride> page = rideRepository.findOwnerPageVersionsBefore(ownerId, position.getKey(), position.getId(),
+                pageSize(size) + 1);
+        String total = includeTotal ? String.valueOf(rideRepository.countByOwnerId(ownerId)) : "";
+        return etag(ownerId, false, versionsOf(page), ownersOf(List.of(ownerId)), total);
+    }
 
-        List<Ride> rides;
+    // Tags every ride of the passenger, not just the page: a ride added to or
+    // removed from one bucket moves the others' page boundaries
+    public String myRidesEtag(String userId, Pageable pageable) {
+        List<Ride> rides = rideRepository.findPassengerRideVersions(userId);
+        return etag(userId, false, pageable.getPageNumber() + "/" + pageable.getPageSize(), versionsOf(rides),
+                ownersOf(DTOMapper.ownerIds(rides)));
+    }
 
-        // Start with basic location filtering
-        if (origin != null && !origin.isEmpty() && destination != null && !destination.isEmpty()) {
-            rides = rideRepository
-                    .findByOriginContainingIgnoreCaseAndDestinationContainingIgnoreCaseAndActiveTrueAndSeatsAvailableGreaterThan(
-                            origin,
-                            destination, 0);
-        } else if (origin != null && !origin.isEmpty()) {
-            rides = rideRepository.findByOriginContainingIgnoreCaseAndActiveTrueAndSeatsAvailableGreaterThan(origin, 0);
-        } else if (destination != null && !destination.isEmpty()) {
-            rides = rideRepository
-                    .findByDestinationContainingIgnoreCaseAndActiveTrueAndSeatsAvailableGreaterThan(destination, 0);
-        } else {
-            rides = rideRepository.findByActiveTrueAndSeatsAvailableGreaterThan(0);
-        }
-
-        // Apply additional filters
-        if (date != null && !date.isEmpty()) {
-            rides = rides.stream()
-                    .filter(ride -> {
-                        // Filter by date (YYYY-MM-DD format)
-                        if (ride.getStartTime() == null)
-                            return false;
-                        String rideDate = new java.text.SimpleDateFormat("yyyy-MM-dd").format(ride.getStartTime());
-                        return rideDate.equals(date);
-                    })
-                    .collect(Collectors.toList());
-        }
-
-        if ((timeFrom != null && !timeFrom.isEmpty()) || (timeTo != null && !timeTo.isEmpty())) {
-            rides = rides.stream()
-                    .filter(ride -> {
-                        // Filter by time range (HH:mm format)
-                        String rideTime = new java.text.SimpleDateFormat("HH:mm").format(ride.getStartTime());
-
-                        boolean matchesFrom = timeFrom == null || timeFrom.isEmpty()
-                                || rideTime.compareTo(timeFrom) >= 0;
-                        boolean matchesTo = timeTo == null || timeTo.isEmpty() || rideTime.compareTo(timeTo) <= 0;
-
-                        return matchesFrom && matchesTo;
-                    })
-                    .collect(Collectors.toList());
-        }
-
-        if (vehicleType != null && !vehicleType.isEmpty()) {
-            rides = rides.stream()
-                    .filter(ride -> {
-                        try {
-                            if (ride.getOwnerId() == null)
-                                return false;
-                            User owner = userRepository.findById(ride.getOwnerId()).orElse(null);
-                            return owner != null && vehicleType.equalsIgnoreCase(owner.getVehicleType());
-                        } catch (Exception e) {
-                            logger.warn("Error filtering by vehicle type for ride {}: {}", ride.getId(),
-                                    e.getMessage());
-                            return false;
-                        }
-                    })
-                    .collect(Collectors.toList());
-        }
-
-        // Exclude rides owned by current user - REMOVED so users can see their own
-        // rides on Search results
-        // if (currentUserId != null) {
-        // rides = rides.stream()
-        // .filter(ride -> !ride.getOwnerId().equals(currentUserId))
-        // .collect(Collectors.toList());
-        // }
-
-        logger.info("Search found {} rides after filtering", rides.size());
-        return enrichListWithOwnerRating(dtoMapper.toRideDTOList(rides));
-    }
-
-    public Page<RideDTO> getAllRides(Pageable pageable) {
-        logger.info("Fetching all rides - page: {}, size: {}", pageable.getPageNumber(), pageable.getPageSize());
-        Page<Ride> ridesPage = rideRepository.findAll(pageable);
-        List<RideDTO> dtos = enrichListWithOwnerRating(dtoMapper.toRideDTOList(ridesPage.getContent()));
-        return new PageImpl<>(dtos, pageable, ridesPage.getTotalElements());
-    }
-
-    public RideDTO getRideById(String id) {
-        logger.info("Fetching ride with id: {}", id);
-        Ride ride = rideRepository.findById(id)
-                .orElseThrow(() -> {
-                    logger.error("Ride not found with id: {}", id);
-                    return new ResourceNotFoundException("Ride not found with id: " + id);
-                });
-        logger.info("Successfully retrieved ride: {}", id);
-        return enrichWithOwnerRating(dtoMapper.toRideDTO(ride));
+    private static String versionsOf(List<Ride> rides) {
+        StringBuilder versions = new StringBuilder();
+        rides.forEach(ride -> versions.append(ride.getId()).append(':').append(ride.getVersion()).append(','));
+        return versions.toString();
     }
 
-    public Page<RideDTO> getMyOffers(String ownerId, Pageable pageable) {
-        logger.info("Fetching rides for owner: {} - page: {}, size: {}", ownerId, pageable.getPageNumber(),
-                pageable.getPageSize());
-        Page<Ride> ridesPage = rideRepository.findByOwnerId(ownerId, pageable);
-        List<RideDTO> dtos = enrichListWithOwnerRating(dtoMapper.toRideDTOList(ridesPage.getContent()));
-        return new PageImpl<>(dtos, pageable, ridesPage.getTotalElements());
+    private String ownersOf(Collection<String> ownerIds) {
+        if (ownerIds.isEmpty()) {
+            return "";
+        }
+        Map<String, String> details = new TreeMap<>();
+        userRepository.findOwnerDetailsByIdIn(ownerIds)
+                .forEach(owner -> details.put(owner.getId(), ownerDetailsOf(owner)));
+        return String.join(",", details.values());
+    }
+
+    // Everything applyOwnerDetails in DTOMapper copies onto a ride DTO
+    static String ownerDetailsOf(User owner) {
+        return owner.getId() + ":" + owner.getRatingSum() + "/" + owner.getRatingCount() + "/"
+                + owner.getAverageRating() + ":" + owner.getGender() + ":" + owner.getVehicleType() + ":"
+                + owner.getVehicleNumber();
+    }
+
+    static String etag(String viewerId, boolean viewerIsAdmin, String... parts) {
+        String raw = viewerId + "|" + viewerIsAdmin + "|" + String.join("|", parts);
+        return "\"" + DigestUtils.md5DigestAsHex(raw.getBytes(StandardCharsets.UTF_8)) + "\"";
     }
 
-    public List<RideDTO> getRidesByOwnerId(String ownerId) {
+    public List<RideDTO> getRidesByOwnerId(String ownerId, String viewerId, boolean viewerIsAdmin) {
         logger.info("Fetching rides for owner: {}", ownerId);
         List<Ride> rides = rideRepository.findByOwnerId(ownerId);
         logger.info("Found {} rides for owner: {}", rides.size(), ownerId);
-        return enrichListWithOwnerRating(dtoMapper.toRideDTOList(rides));
+        return dtoMapper.toRideDTOList(rides, viewerId, viewerIsAdmin);
     }
 
     public MyRidesResponseDTO getMyRides(String userId, Pageable pageable) {
         logger.info("Fetching my rides for user: {} - page: {}, size: {}", userId, pageable.getPageNumber(),
                 pageable.getPageSize());
 
-        Page<Ride> bookedRidesPage = rideRepository.findByAcceptedPassengersContains(userId, pageable);
-        Page<Ride> pendingRidesPage = rideRepository.findByRequestsContains(userId, pageable);
-        Page<Ride> canceledRidesPage = rideRepository.findByCanceledRequestsContains(userId, pageable);
+        PassengerRideBuckets buckets = rideRepository.findPassengerRides(userId, pageable);
+
+        // Map all three buckets together: one owner query (ratings included) and
+        // one booking query for the whole dashboard
+        List<Ride> allRides = new java.util.ArrayList<>(buckets.getApproved());
+        allRides.addAll(buckets.getPending());
+        allRides.addAll(buckets.getCanceled());
+        List<RideDTO> allDtos = dtoMapper.toRideDTOList(allRides, userId, false);
+
+        int approvedEnd = buckets.getApproved().size();
+        int pendingEnd = approvedEnd + buckets.getPending().size();
 
         MyRidesResponseDTO response = new MyRidesResponseDTO();
-        response.setApprovedRides(enrichListWithOwnerRating(dtoMapper.toRideDTOList(bookedRidesPage.getContent())));
-        response.setPendingRequests(enrichListWithOwnerRating(dtoMapper.toRideDTOList(pendingRidesPage.getContent())));
-        response.setCanceledRides(enrichListWithOwnerRating(dtoMapper.toRideDTOList(canceledRidesPage.getContent())));
+        response.setApprovedRides(new java.util.ArrayList<>(allDtos.subList(0, approvedEnd)));
+        response.setPendingRequests(new java.util.ArrayList<>(allDtos.subList(approvedEnd, pendingEnd)));
+        response.setCanceledRides(new java.util.ArrayList<>(allDtos.subList(pendingEnd, allDtos.size())));
 
-        response.setTotalApproved(bookedRidesPage.getTotalElements());
-        response.setTotalPending(pendingRidesPage.getTotalElements());
-        response.setTotalCanceled(canceledRidesPage.getTotalElements());
+        response.setTotalApproved(buckets.getTotalApproved());
+        response.setTotalPending(buckets.getTotalPending());
+        response.setTotalCanceled(buckets.getTotalCanceled());
 
         logger.info("Retrieved paginated rides for user: {}", userId);
         return response;
     }
 
     @Transactional
-    public RideDTO createRide(RideCreateRequestDTO request, String userEmail) {
+    public RideDTO createRide(RideCreateRequestDTO request, String ownerId, String ownerName) {
         logger.info("Creating new ride from {} to {}", request.getOrigin(), request.getDestination());
 
-        User owner = userService.getUserByEmail(userEmail);
-
         Ride ride = dtoMapper.toRide(request);
-        ride.setOwnerId(owner.getId());
-        ride.setOwnerName(owner.getName());
+        ride.setOwnerId(ownerId);
+        ride.setOwnerName(ownerName);
         ride.setStatus("SCHEDULED"); // Set initial status
 
+        // A recurring ride starts a series named after its own id
+        boolean recurring = ScheduleRule.isRecurring(ride.getSchedule());
+        if (recurring) {
+            ride.setId(new ObjectId().toHexString());
+            ride.setSeriesId(ride.getId());
+        }
+
         Ride savedRide = rideRepository.save(ride);
+        rideRouteIndex.update(savedRide);
         logger.info("Successfully created ride with id: {}", savedRide.getId());
 
-        return enrichWithOwnerRating(dtoMapper.toRideDTO(savedRide));
+        if (recurring) {
+            long instances = recurringRideService.materialize(savedRide);
+            logger.info("Materialized {} upcoming instances of series {}", instances, savedRide.getSeriesId());
+        }
+
+        return dtoMapper.toRideDTO(savedRide, ownerId, false);
     }
 
     @Transactional
-    public RideDTO bookRide(String rideId, String userId, int seatsRequested) {
+    public RideDTO bookRide(String rideId, String userId, String passengerName, int seatsRequested) {
+        return optimisticLockRetry.execute("bookRide",
+                () -> doBookRide(rideId, userId, passengerName, seatsRequested));
+    }
+
+    private RideDTO doBookRide(String rideId, String userId, String passengerName, int seatsRequested) {
         logger.info("User {} requesting to book ride: {} with {} seats", userId, rideId, seatsRequested);
 
         Ride ride = rideRepository.findById(rideId)
@@ -306,13 +284,6 @@ public class RideService {
             ride.getRequests().add(userId);
         }
 
-        if (ride.getBookings() == null) {
-            ride.setBookings(new java.util.ArrayList<>());
-        }
-
-        // Remove any stale pending booking for this passenger
-        ride.getBookings().removeIf(b -> userId.equals(b.getPassengerId()) && "PENDING".equals(b.getStatus()));
-
         com.highwaylink.model.Booking booking = new com.highwaylink.model.Booking();
         booking.setRideId(rideId);
         booking.setPassengerId(userId);
@@ -322,36 +293,44 @@ public class RideService {
         booking.setSeatsRequested(seatsRequested);
         booking.setRequestedAt(new java.util.Date());
 
-        try {
-            com.highwaylink.model.User passenger = userRepository.findById(userId).orElse(null);
-            if (passenger != null) {
-                booking.setPassengerName(passenger.getName());
+        if (passengerName != null) {
+            booking.setPassengerName(passengerName);
+        } else {
+            try {
+                requestUserLookup.findById(userId).ifPresent(passenger -> booking.setPassengerName(passenger.getName()));
+            } catch (Exception e) {
+                logger.warn("Could not fetch passenger name for {}", userId);
             }
-        } catch (Exception e) {
-            logger.warn("Could not fetch passenger name for {}", userId);
         }
 
-        ride.getBookings().add(booking);
-
         Ride updatedRide = rideRepository.save(ride);
+        rideRouteIndex.update(updatedRide);
+
+        // Replace any stale pending booking for this passenger
+        bookingRepository.deleteByRideIdAndPassengerIdAndStatus(rideId, userId, "PENDING");
+        bookingRepository.save(booking);
         logger.info("Successfully added booking request for user {} to ride {} with {} seats", userId, rideId,
                 seatsRequested);
 
         // Notify Owner
         try {
-            String passengerName = (booking.getPassengerName() != null ? booking.getPassengerName() : "a user");
-            String msg = "New booking request from " + passengerName + " " + ride.getOrigin() + " to "
+            String requester = (booking.getPassengerName() != null ? booking.getPassengerName() : "a user");
+            String msg = "New booking request from " + requester + " " + ride.getOrigin() + " to "
                     + ride.getDestination();
             notificationService.createNotification(ride.getOwnerId(), msg, "INFO", rideId);
         } catch (Exception e) {
             logger.error("Failed to send notification", e);
         }
 
-        return dtoMapper.toRideDTO(updatedRide);
+        return dtoMapper.toRideDTO(updatedRide, userId, false);
     }
 
     @Transactional
     public RideDTO cancelBookingRequest(String rideId, String userId) {
+        return optimisticLockRetry.execute("cancelBookingRequest", () -> doCancelBookingRequest(rideId, userId));
+    }
+
+    private RideDTO doCancelBookingRequest(String rideId, String userId) {
         logger.info("User {} canceling booking request for ride {}", userId, rideId);
 
         Ride ride = rideRepository.findById(rideId)
@@ -360,11 +339,9 @@ public class RideService {
         if (ride.getRequests() != null && ride.getRequests().contains(userId)) {
             ride.getRequests().remove(userId);
 
-            if (ride.getBookings() != null) {
-                ride.getBookings().removeIf(b -> userId.equals(b.getPassengerId()) && "PENDING".equals(b.getStatus()));
-            }
-
             Ride updatedRide = rideRepository.save(ride);
+            rideRouteIndex.update(updatedRide);
+            bookingRepository.deleteByRideIdAndPassengerIdAndStatus(rideId, userId, "PENDING");
             logger.info("Successfully canceled booking request for user {} on ride {}", userId, rideId);
 
             // Notify Owner
@@ -375,7 +352,7 @@ public class RideService {
                 logger.error("Failed to send notification", e);
             }
 
-            return dtoMapper.toRideDTO(updatedRide);
+            return dtoMapper.toRideDTO(updatedRide, userId, false);
         }
 
         throw new BadRequestException("No pending request found");
@@ -383,6 +360,10 @@ public class RideService {
 
     @Transactional
     public RideDTO acceptBookingRequest(String rideId, String passengerId, String ownerId) {
+        return optimisticLockRetry.execute("acceptBookingRequest", () -> doAcceptBookingRequest(rideId, passengerId, ownerId));
+    }
+
+    private RideDTO doAcceptBookingRequest(String rideId, String passengerId, String ownerId) {
         logger.info("User {} accepting passenger {} for ride {}", ownerId, passengerId, rideId);
 
         Ride ride = rideRepository.findById(rideId)
@@ -397,58 +378,77 @@ public class RideService {
             throw new BadRequestException("No seats available");
         }
 
-        if (ride.getRequests() != null && ride.getRequests().contains(passengerId)) {
-            if (ride.getBookings() == null) {
-                throw new BadRequestException("No booking found for this passenger");
-            }
-
-            com.highwaylink.model.Booking booking = ride.getBookings().stream()
-                    .filter(b -> passengerId.equals(b.getPassengerId()))
-                    .findFirst()
-                    .orElse(null);
+        if (ride.getRequests() == null || !ride.getRequests().contains(passengerId)) {
+            throw new BadRequestException("Passenger not in requests");
+        }
 
-            if (booking == null) {
-                throw new BadRequestException("No booking found for this passenger");
-            }
+        com.highwaylink.model.Booking booking = bookingRepository
+                .findFirstByRideIdAndPassengerIdAndStatus(rideId, passengerId, "PENDING")
+                .orElse(null);
 
-            int seatsToAllocate = Math.max(1, booking.getSeatsRequested());
+        if (booking == null) {
+            throw new BadRequestException("No booking found for this passenger");
+        }
 
-            if (ride.getSeatsAvailable() < seatsToAllocate) {
-                throw new BadRequestException("No seats available");
-            }
+        int seatsToAllocate = Math.max(1, booking.getSeatsRequested());
 
-            ride.getRequests().remove(passengerId);
+        if (ride.getSeatsAvailable() < seatsToAllocate) {
+            throw new BadRequestException("No seats available");
+        }
 
-            if (ride.getAcceptedPassengers() == null) {
-                ride.setAcceptedPassengers(new java.util.ArrayList<>());
-            }
-            ride.getAcceptedPassengers().add(passengerId);
-            ride.setSeatsAvailable(ride.getSeatsAvailable() - seatsToAllocate);
+        // Conditional update: the seats are only taken if they are still free when
+        // Mongo applies it, so concurrent accepts cannot oversell the ride
+        Ride updatedRide = rideRepository.reserveSeats(rideId, ownerId, passengerId, seatsToAllocate);
+        if (updatedRide == null) {
+            throw seatReservationFailure(rideId, passengerId, seatsToAllocate);
+        }
+        rideRouteIndex.update(updatedRide);
 
-            booking.setStatus("APPROVED");
-            booking.setPaymentStatus("PENDING");
+        booking.setStatus("APPROVED");
+        booking.setPaymentStatus("PENDING");
+        bookingRepository.save(booking);
+        logger.info("Successfully accepted passenger {} for ride {} with {} seats", passengerId, rideId,
+                seatsToAllocate);
 
-            Ride updatedRide = rideRepository.save(ride);
-            logger.info("Successfully accepted passenger {} for ride {} with {} seats", passengerId, rideId,
-                    seatsToAllocate);
+        // Notify Passenger
+        try {
+            String msg = "Your request for ride " + ride.getOrigin() + " -> " + ride.getDestination()
+                    + " has been accepted!";
+            notificationService.createNotification(passengerId, msg, "SUCCESS", rideId);
+        } catch (Exception e) {
+            logger.error("Failed to send notification", e);
+        }
 
-            // Notify Passenger
-            try {
-                String msg = "Your request for ride " + ride.getOrigin() + " -> " + ride.getDestination()
-                        + " has been accepted!";
-                notificationService.createNotification(passengerId, msg, "SUCCESS", rideId);
-            } catch (Exception e) {
-                logger.error("Failed to send notification", e);
-            }
+        return dtoMapper.toRideDTO(updatedRide, ownerId, false);
+    }
 
-            return dtoMapper.toRideDTO(updatedRide);
+    // Explains why a conditional seat reservation matched nothing, based on the
+    // ride as it is now
+    private RuntimeException seatReservationFailure(String rideId, String passengerId, int seats) {
+        Ride current = rideRepository.findById(rideId).orElse(null);
+        if (current == null) {
+            return new ResourceNotFoundException("Ride not found");
         }
-
-        throw new BadRequestException("Passenger not in requests");
+        if (!current.isActive() || (current.getStatus() != null && !"SCHEDULED".equals(current.getStatus()))) {
+            return new BadRequestException("Ride is no longer open for bookings");
+        }
+        if (current.getRequests() == null || !current.getRequests().contains(passengerId)) {
+            return new BadRequestException("Passenger not in requests");
+        }
+        if (current.getSeatsAvailable() == null || current.getSeatsAvailable() < seats) {
+            return new BadRequestException("No seats available");
+        }
+        // Guards look satisfied now, so the ride changed between our read and the
+        // update; let the retry re-read it
+        return new OptimisticLockingFailureException("Ride " + rideId + " was modified concurrently");
     }
 
     @Transactional
     public RideDTO rejectBookingRequest(String rideId, String passengerId, String ownerId) {
+        return optimisticLockRetry.execute("rejectBookingRequest", () -> doRejectBookingRequest(rideId, passengerId, ownerId));
+    }
+
+    private RideDTO doRejectBookingRequest(String rideId, String passengerId, String ownerId) {
         logger.info("User {} rejecting passenger {} for ride {}", ownerId, passengerId, rideId);
 
         Ride ride = rideRepository.findById(rideId)
@@ -470,17 +470,9 @@ public class RideService {
                 ride.getCanceledRequests().add(passengerId);
             }
 
-            if (ride.getBookings() != null) {
-                ride.getBookings().forEach(b -> {
-                    if (passengerId.equals(b.getPassengerId()) && "PENDING".equals(b.getStatus())) {
-                        b.setStatus("REJECTED");
-                    }
-                });
-                ride.getBookings()
-                        .removeIf(b -> passengerId.equals(b.getPassengerId()) && "REJECTED".equals(b.getStatus()));
-            }
-
             Ride updatedRide = rideRepository.save(ride);
+            rideRouteIndex.update(updatedRide);
+            bookingRepository.deleteByRideIdAndPassengerIdAndStatus(rideId, passengerId, "PENDING");
             logger.info("Successfully rejected passenger {} for ride {} and added to canceledRequests", passengerId,
                     rideId);
 
@@ -492,7 +484,7 @@ public class RideService {
             } catch (Exception e) {
                 logger.error("Failed to send notification", e);
             }
-            return dtoMapper.toRideDTO(updatedRide);
+            return dtoMapper.toRideDTO(updatedRide, ownerId, false);
         }
 
         throw new BadRequestException("Passenger not in requests");
@@ -500,6 +492,10 @@ public class RideService {
 
     @Transactional
     public RideDTO removePassenger(String rideId, String passengerId, String ownerId) {
+        return optimisticLockRetry.execute("removePassenger", () -> doRemovePassenger(rideId, passengerId, ownerId));
+    }
+
+    private RideDTO doRemovePassenger(String rideId, String passengerId, String ownerId) {
         logger.info("User {} removing passenger {} from ride {}", ownerId, passengerId, rideId);
 
         Ride ride = rideRepository.findById(rideId)
@@ -514,42 +510,49 @@ public class RideService {
             throw new BadRequestException("Cannot remove passengers after the ride has started");
         }
 
-        if (ride.getAcceptedPassengers() != null && ride.getAcceptedPassengers().contains(passengerId)) {
-            int seatsToRestore = 1;
-            if (ride.getBookings() != null) {
-                for (com.highwaylink.model.Booking booking : ride.getBookings()) {
-                    if (passengerId.equals(booking.getPassengerId()) && "APPROVED".equals(booking.getStatus())) {
-                        seatsToRestore = Math.max(1, booking.getSeatsRequested());
-                        booking.setStatus("REMOVED");
-                        break;
-                    }
-                }
-                ride.getBookings()
-                        .removeIf(b -> passengerId.equals(b.getPassengerId()) && "REMOVED".equals(b.getStatus()));
-            }
+        if (ride.getAcceptedPassengers() == null || !ride.getAcceptedPassengers().contains(passengerId)) {
+            throw new BadRequestException("Passenger not found in this ride");
+        }
 
-            ride.getAcceptedPassengers().remove(passengerId);
-            ride.setSeatsAvailable(ride.getSeatsAvailable() + seatsToRestore);
+        int seatsToRestore = bookingRepository
+                .findFirstByRideIdAndPassengerIdAndStatus(rideId, passengerId, "APPROVED")
+                .map(booking -> Math.max(1, booking.getSeatsRequested()))
+                .orElse(1);
 
-            Ride updatedRide = rideRepository.save(ride);
-            logger.info("Successfully removed passenger {} from ride {} and restored {} seats", passengerId, rideId,
-                    seatsToRestore);
-            return dtoMapper.toRideDTO(updatedRide);
+        Ride updatedRide = rideRepository.releaseSeats(rideId, ownerId, passengerId, seatsToRestore);
+        if (updatedRide == null) {
+            // Passenger already removed or the ride started in the meantime
+            Ride current = rideRepository.findById(rideId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Ride not found"));
+            if (!"SCHEDULED".equals(current.getStatus())) {
+                throw new BadRequestException("Cannot remove passengers after the ride has started");
+            }
+            throw new BadRequestException("Passenger not found in this ride");
         }
-
-        throw new BadRequestException("Passenger not found in this ride");
+        rideRouteIndex.update(updatedRide);
+        bookingRepository.deleteByRideIdAndPassengerIdAndStatus(rideId, passengerId, "APPROVED");
+        logger.info("Successfully removed passenger {} from ride {} and restored {} seats", passengerId, rideId,
+                seatsToRestore);
+        return dtoMapper.toRideDTO(updatedRide, ownerId, false);
     }
 
     @Transactional
-    public RideDTO updateRide(String id, Ride ride, String userEmail) {
+    public RideDTO updateRide(String id, Ride ride, String userId, boolean isAdmin, boolean applyToSeries) {
+        RideDTO updated = optimisticLockRetry.execute("updateRide", () -> doUpdateRide(id, ride, userId, isAdmin));
+        if (applyToSeries && updated.getSeriesId() != null) {
+            recurringRideService.applySeriesEdit(id);
+        }
+        return updated;
+    }
+
+    private RideDTO doUpdateRide(String id, Ride ride, String userId, boolean isAdmin) {
         logger.info("Updating ride with id: {}", id);
 
-        User user = userService.getUserByEmail(userEmail);
         Ride existingRide = rideRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Ride not found"));
 
         // Allow ADMIN to update any ride, or owner to update their own ride
-        if (!"ADMIN".equals(user.getRole()) && !existingRide.getOwnerId().equals(user.getId())) {
+        if (!isAdmin && !existingRide.getOwnerId().equals(userId)) {
             throw new UnauthorizedException("Only ride owner or admin can update the ride");
         }
 
@@ -568,13 +571,9 @@ public class RideService {
             existingRide.setTotalSeats(ride.getTotalSeats());
         }
 
-        int acceptedSeats = 0;
-        if (existingRide.getBookings() != null) {
-            acceptedSeats = existingRide.getBookings().stream()
-                    .filter(b -> "APPROVED".equals(b.getStatus()))
-                    .mapToInt(b -> Math.max(1, b.getSeatsRequested()))
-                    .sum();
-        }
+        int acceptedSeats = bookingRepository.findByRideIdAndStatus(id, "APPROVED").stream()
+                .mapToInt(b -> Math.max(1, b.getSeatsRequested()))
+                .sum();
         existingRide.setSeatsAvailable(existingRide.getTotalSeats() - acceptedSeats);
 
         if (ride.getSeatsAvailable() != null && ride.getSeatsAvailable() >= 0) {
@@ -597,30 +596,36 @@ public class RideService {
 
         // Save the merged existing ride
         Ride updatedRide = rideRepository.save(existingRide);
+        rideRouteIndex.update(updatedRide);
         logger.info("Successfully updated ride: {}", id);
-        return dtoMapper.toRideDTO(updatedRide);
+        return dtoMapper.toRideDTO(updatedRide, userId, isAdmin);
     }
 
     @Transactional
-    public void deleteRide(String id, String userEmail) {
+    public void deleteRide(String id, String userId) {
         logger.info("Deleting ride with id: {}", id);
 
-        User user = userService.getUserByEmail(userEmail);
         Ride ride = rideRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Ride not found"));
 
-        if (!ride.getOwnerId().equals(user.getId())) {
+        if (!ride.getOwnerId().equals(userId)) {
             throw new UnauthorizedException("Only ride owner can delete the ride");
         }
 
-        // Schedule field is kept for historical data but no longer auto-reschedules
+        // Only this instance goes; other instances of a recurring series are kept
 
         rideRepository.deleteById(id);
+        rideRouteIndex.remove(id);
+        bookingRepository.deleteByRideId(id);
         logger.info("Successfully deleted ride: {}", id);
     }
 
     @Transactional
     public RideDTO markPaymentCollected(String rideId, String passengerId, String ownerId, Double amount) {
+        return optimisticLockRetry.execute("markPaymentCollected", () -> doMarkPaymentCollected(rideId, passengerId, ownerId, amount));
+    }
+
+    private RideDTO doMarkPaymentCollected(String rideId, String passengerId, String ownerId, Double amount) {
         logger.info("Marking payment collected for ride: {}, passenger: {}, amount: {}", rideId, passengerId, amount);
 
         Ride ride = rideRepository.findById(rideId)
@@ -631,23 +636,18 @@ public class RideService {
         }
 
         // Find and update the booking for this passenger
-        boolean bookingFound = false;
-        for (com.highwaylink.model.Booking booking : ride.getBookings()) {
-            if (booking.getPassengerId().equals(passengerId) && "APPROVED".equals(booking.getStatus())) {
-                booking.setPaymentStatus("COMPLETED");
-                booking.setPaymentCollectedAt(new java.util.Date());
-                booking.setAmountPaid(amount);
-                bookingFound = true;
-                logger.info("Payment marked as collected for booking: passenger {}", passengerId);
-                break;
-            }
-        }
-
-        if (!bookingFound) {
-            throw new BadRequestException("No approved booking found for this passenger");
-        }
-
-        Ride updatedRide = rideRepository.save(ride);
+        com.highwaylink.model.Booking booking = bookingRepository
+                .findFirstByRideIdAndPassengerIdAndStatus(rideId, passengerId, "APPROVED")
+                .orElseThrow(() -> new BadRequestException("No approved booking found for this passenger"));
+
+        booking.setPaymentStatus("COMPLETED");
+        booking.setPaymentCollectedAt(new java.util.Date());
+        booking.setAmountPaid(amount);
+        booking = bookingRepository.save(booking);
+        earningsService.recordPayment(booking, ownerId);
+        // The booking is part of the ride's views, so bump the version their ETags use
+        ride = rideRepository.save(ride);
+        logger.info("Payment marked as collected for booking: passenger {}", passengerId);
 
         // Notify Passenger
         try {
@@ -657,103 +657,22 @@ public class RideService {
             logger.error("Failed to notify passenger {} about payment collection", passengerId, e);
         }
 
-        return dtoMapper.toRideDTO(updatedRide);
+        return dtoMapper.toRideDTO(ride, ownerId, false);
     }
 
     public java.util.Map<String, Object> getTodayEarnings(String ownerId) {
         logger.info("Calculating today's earnings for owner: {}", ownerId);
-
-        // Get all rides owned by this user
-        List<Ride> ownerRides = rideRepository.findByOwnerId(ownerId);
-
-        // Calculate today's earnings
-        java.time.LocalDate today = java.time.LocalDate.now();
-        java.time.ZoneId zoneId = java.time.ZoneId.systemDefault();
-
-        double cashEarnings = 0.0;
-        double cardEarnings = 0.0;
-        int cashPaymentsCount = 0;
-        int cardPaymentsCount = 0;
-
-        for (Ride ride : ownerRides) {
-            for (com.highwaylink.model.Booking booking : ride.getBookings()) {
-                if ("COMPLETED".equals(booking.getPaymentStatus()) &&
-                        booking.getPaymentCollectedAt() != null &&
-                        booking.getAmountPaid() != null) {
-
-                    // Check if payment was collected today
-                    java.time.LocalDate paymentDate = booking.getPaymentCollectedAt()
-                            .toInstant().atZone(zoneId).toLocalDate();
-
-                    if (paymentDate.equals(today)) {
-                        if ("CASH".equals(booking.getPaymentMethod())) {
-                            cashEarnings += booking.getAmountPaid();
-                            cashPaymentsCount++;
-                        } else if ("CARD".equals(booking.getPaymentMethod())) {
-                            cardEarnings += booking.getAmountPaid();
-                            cardPaymentsCount++;
-                        }
-                    }
-                }
-            }
-        }
-
-        java.util.Map<String, Object> earnings = new java.util.HashMap<>();
-        earnings.put("cashEarnings", cashEarnings);
-        earnings.put("cardEarnings", cardEarnings);
-        earnings.put("totalEarnings", cashEarnings + cardEarnings);
-        earnings.put("cashPaymentsCount", cashPaymentsCount);
-        earnings.put("cardPaymentsCount", cardPaymentsCount);
-        earnings.put("date", today.toString());
-
-        logger.info("Today's earnings - Cash: {}, Card: {}, Total: {}",
-                cashEarnings, cardEarnings, (cashEarnings + cardEarnings));
-
-        return earnings;
+        return earningsService.getTodayEarnings(ownerId);
     }
 
     public java.util.Map<String, Object> getTotalEarnings(String ownerId) {
         logger.info("Calculating total earnings for owner: {}", ownerId);
+        return earningsService.getTotalEarnings(ownerId);
+    }
 
-        // Get all rides owned by this user
-        List<Ride> ownerRides = rideRepository.findByOwnerId(ownerId);
-
-        double cashEarnings = 0.0;
-        double cardEarnings = 0.0;
-        int cashPaymentsCount = 0;
-        int cardPaymentsCount = 0;
-
-        for (Ride ride : ownerRides) {
-            if (ride.getBookings() == null)
-                continue;
-
-            for (com.highwaylink.model.Booking booking : ride.getBookings()) {
-                if ("COMPLETED".equals(booking.getPaymentStatus()) &&
-                        booking.getPaymentCollectedAt() != null &&
-                        booking.getAmountPaid() != null) {
-
-                    if ("CASH".equals(booking.getPaymentMethod())) {
-                        cashEarnings += booking.getAmountPaid();
-                        cashPaymentsCount++;
-                    } else if ("CARD".equals(booking.getPaymentMethod())) {
-                        cardEarnings += booking.getAmountPaid();
-                        cardPaymentsCount++;
-                    }
-                }
-            }
-        }
-
-        java.util.Map<String, Object> earnings = new java.util.HashMap<>();
-        earnings.put("cashEarnings", cashEarnings);
-        earnings.put("cardEarnings", cardEarnings);
-        earnings.put("totalEarnings", cashEarnings + cardEarnings);
-        earnings.put("cashPaymentsCount", cashPaymentsCount);
-        earnings.put("cardPaymentsCount", cardPaymentsCount);
-
-        logger.info("Total earnings - Cash: {}, Card: {}, Total: {}",
-                cashEarnings, cardEarnings, (cashEarnings + cardEarnings));
-
-        return earnings;
+    public java.util.Map<String, Object> getEarnings(String ownerId, String from, String to, String granularity) {
+        logger.info("Calculating earnings for owner: {} from {} to {} by {}", ownerId, from, to, granularity);
+        return earningsService.getEarnings(ownerId, from, to, granularity);
     }
 
     public RideDTO startRide(String rideId, String ownerId) {
@@ -817,6 +736,7 @@ public class RideService {
 
         ride.setStatus("IN_PROGRESS");
         Ride savedRide = rideRepository.save(ride);
+        rideRouteIndex.update(savedRide);
 
         // Notify Owner
         try {
@@ -837,7 +757,7 @@ public class RideService {
             });
         }
 
-        return dtoMapper.toRideDTO(savedRide);
+        return dtoMapper.toRideDTO(savedRide, ownerId, false);
     }
 
     public RideDTO endRide(String rideId, String ownerId) {
@@ -859,12 +779,11 @@ public class RideService {
         ride.setStatus("COMPLETED");
         ride.setActive(false); // Ensure it's marked inactive
         Ride savedRide = rideRepository.save(ride);
+        rideRouteIndex.update(savedRide);
 
         logger.info("Ride {} marked as COMPLETED. Schedule: '{}'", rideId, ride.getSchedule());
 
-        // Schedule field is kept for historical data but no longer auto-reschedules
-        logger.info("Ride {} completed. Schedule field ('{}') maintained for records only.", rideId,
-                ride.getSchedule());
+        // Later instances of a recurring series already exist (see RecurringRideService)
 
         // Notify Passengers about ride completion
         if (ride.getAcceptedPassengers() != null) {
@@ -878,23 +797,17 @@ public class RideService {
             });
         }
 
-        return dtoMapper.toRideDTO(savedRide);
+        return dtoMapper.toRideDTO(savedRide, ownerId, false);
     }
 
-    public RideDTO cancelRide(String rideId, String ownerId) {
+    public RideDTO cancelRide(String rideId, String ownerId, boolean callerIsAdmin) {
         logger.info("Cancelling ride {} for owner {}", rideId, ownerId);
 
         Ride ride = rideRepository.findById(rideId)
                 .orElseThrow(() -> new ResourceNotFoundException("Ride not found"));
 
-        if (!ride.getOwnerId().equals(ownerId)) {
-            // Check if user is an ADMIN
-            User user = userRepository.findById(ownerId)
-                    .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-            if (!"ADMIN".equals(user.getRole())) {
-                throw new UnauthorizedException("Only the ride owner or an admin can cancel the ride");
-            }
+        if (!ride.getOwnerId().equals(ownerId) && !callerIsAdmin) {
+            throw new UnauthorizedException("Only the ride owner or an admin can cancel the ride");
         }
 
         // Optional: restriction on cancelling if already started or completed
@@ -905,6 +818,7 @@ public class RideService {
         ride.setStatus("CANCELED");
         ride.setActive(false);
         Ride savedRide = rideRepository.save(ride);
+        rideRouteIndex.update(savedRide);
 
         logger.info("Ride {} canceled by owner", rideId);
 
@@ -920,6 +834,6 @@ public class RideService {
             });
         }
 
-        return dtoMapper.toRideDTO(savedRide);
+        return dtoMapper.toRideDTO(savedRide, ownerId, callerIsAdmin);
     }
 }
\ No newline at end of file
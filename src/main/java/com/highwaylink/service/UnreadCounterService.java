@@ -0,0 +1,114 @@
+package com.highwaylink.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.highwaylink.model.Notification;
+import com.highwaylink.model.NotificationCounter;
+import com.highwaylink.repository.NotificationRepository;
+
+import jakarta.annotation.PostConstruct;
+
+// Unread-notification badge counts. Each user has a counter document that every
+// notification write adjusts with $inc, mirrored in a short-lived in-process cache,
+// so reading the badge never counts the notifications collection. A counter is
+// created from a real count the first time it is read; UnreadCounterReconcileJob
+// recounts periodically to correct drift (e.g. writes from other instances racing
+// that first count).
+@Service
+public class UnreadCounterService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NotificationRepository notificationRepository;
+
+    @Autowired
+    private NotificationOutbox notificationOutbox;
+
+    @Value("${highwaylink.notifications.unread-cache.ttl-seconds:30}")
+    private long cacheTtlSeconds;
+
+    @Value("${highwaylink.notifications.unread-cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    private Cache<String, Long> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .maximumSize(cacheMaxSize)
+                .build();
+        notificationOutbox.addListener(this::onStored);
+    }
+
+    public long getUnread(String userId) {
+        Long cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        NotificationCounter counter = mongoTemplate.findById(userId, NotificationCounter.class);
+        long unread;
+        if (counter != null) {
+            unread = counter.getUnread();
+        } else {
+            unread = notificationRepository.countByUserIdAndIsReadFalse(userId);
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(userId)),
+                    new Update().setOnInsert("unread", unread), NotificationCounter.class);
+        }
+        unread = Math.max(0, unread);
+        cache.put(userId, unread);
+        return unread;
+    }
+
+    public void adjust(String userId, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        // Only existing counters are adjusted; a missing one is created from a
+        // real count on its first read
+        NotificationCounter counter = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(userId)),
+                new Update().inc("unread", delta),
+                FindAndModifyOptions.options().returnNew(true),
+                NotificationCounter.class);
+        if (counter != null) {
+            cache.put(userId, Math.max(0, counter.getUnread()));
+        } else {
+            cache.invalidate(userId);
+        }
+    }
+
+    // Overwrites a counter with a recounted value, unless it no longer holds the
+    // value the recount started from. Returns whether it was overwritten.
+    public boolean reset(String userId, long expected, long unread) {
+        long modified = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(userId).and("unread").is(expected)),
+                new Update().set("unread", unread), NotificationCounter.class).getModifiedCount();
+        cache.invalidate(userId);
+        return modified > 0;
+    }
+
+    private void onStored(List<Notification> batch) {
+        Map<String, Long> unreadByUser = batch.stream()
+                .filter(notification -> !notification.isRead())
+                .collect(Collectors.groupingBy(Notification::getUserId, Collectors.counting()));
+        unreadByUser.forEach(this::adjust);
+    }
+}
@@ -1,6 +1,8 @@
 package com.highwaylink.service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -10,6 +12,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.highwaylink.DTO.UserDTO;
+import com.highwaylink.config.UserDetailsCache;
 import com.highwaylink.exception.ResourceNotFoundException;
 import com.highwaylink.model.User;
 import com.highwaylink.repository.UserRepository;
@@ -26,6 +29,9 @@ public class UserService {
     @Autowired
     private DTOMapper dtoMapper;
 
+    @Autowired
+    private UserDetailsCache userDetailsCache;
+
     public List<UserDTO> getAllUsers() {
         logger.info("Fetching all users");
         List<User> users = userRepository.findAll();
@@ -79,30 +85,42 @@ public class UserService {
                     return new ResourceNotFoundException("User not found");
                 });
 
-        // Update fields if provided
+        String previousEmail = user.getEmail();
+
+        // Update fields if provided. Only those are $set, so a concurrent review's
+        // $inc on the rating aggregate isn't overwritten by a stale copy.
+        Map<String, Object> changes = new LinkedHashMap<>();
         if (userUpdate.getName() != null) {
-            user.setName(userUpdate.getName());
+            changes.put("name", userUpdate.getName());
         }
         if (userUpdate.getEmail() != null) {
-            user.setEmail(userUpdate.getEmail());
+            changes.put("email", userUpdate.getEmail());
         }
         if (userUpdate.getRole() != null) {
-            user.setRole(userUpdate.getRole());
+            changes.put("role", userUpdate.getRole());
         }
         if (userUpdate.getPhone() != null) {
-            user.setPhone(userUpdate.getPhone());
+            changes.put("phone", userUpdate.getPhone());
         }
         if (userUpdate.getGender() != null) {
-            user.setGender(userUpdate.getGender());
+            changes.put("gender", userUpdate.getGender());
         }
         if (userUpdate.getVehicleNumber() != null) {
-            user.setVehicleNumber(userUpdate.getVehicleNumber());
+            changes.put("vehicleNumber", userUpdate.getVehicleNumber());
         }
         if (userUpdate.getVehicleType() != null) {
-            user.setVehicleType(userUpdate.getVehicleType());
+            changes.put("vehicleType", userUpdate.getVehicleType());
+        }
+        if (changes.isEmpty()) {
+            return dtoMapper.toUserDTO(user);
         }
 
-        User updatedUser = userRepository.save(user);
+        User updatedUser = userRepository.updateProfile(id, changes);
+        if (updatedUser == null) {
+            throw new ResourceNotFoundException("User not found");
+        }
+        userDetailsCache.evict(previousEmail);
+        userDetailsCache.evict(updatedUser.getEmail());
         logger.info("User updated successfully: {}", id);
 
         return dtoMapper.toUserDTO(updatedUser);
@@ -112,12 +130,14 @@ public class UserService {
     public void deleteUser(String id) {
         logger.info("Deleting user: {}", id);
 
-        if (!userRepository.existsById(id)) {
-            logger.warn("User not found for deletion: {}", id);
-            throw new ResourceNotFoundException("User not found");
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> {
+                    logger.warn("User not found for deletion: {}", id);
+                    return new ResourceNotFoundException("User not found");
+                });
 
         userRepository.deleteById(id);
+        userDetailsCache.evict(user.getEmail());
         logger.info("User deleted successfully: {}", id);
 
     }
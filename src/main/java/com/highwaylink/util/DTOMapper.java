@@ -1,10 +1,17 @@
 package com.highwaylink.util;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import com.highwaylink.DTO.RideCreateRequestDTO;
@@ -12,17 +19,23 @@ import com.highwaylink.DTO.RideDTO;
 import com.highwaylink.DTO.RideUpdateRequestDTO;
 import com.highwaylink.DTO.SignupRequestDTO;
 import com.highwaylink.DTO.UserDTO;
+import com.highwaylink.model.Booking;
 import com.highwaylink.model.Ride;
 import com.highwaylink.model.User;
+import com.highwaylink.repository.BookingRepository;
 import com.highwaylink.repository.UserRepository;
 
 @Component
 public class DTOMapper {
 
+    private static final Logger logger = LoggerFactory.getLogger(DTOMapper.class);
+
     private final UserRepository userRepository;
+    private final BookingRepository bookingRepository;
 
-    public DTOMapper(UserRepository userRepository) {
+    public DTOMapper(UserRepository userRepository, BookingRepository bookingRepository) {
         this.userRepository = userRepository;
+        this.bookingRepository = bookingRepository;
     }
 
     // User to UserDTO
@@ -48,6 +61,25 @@ public class DTOMapper {
 
     // Ride to RideDTO (with passenger details AND owner details)
     public RideDTO toRideDTO(Ride ride) {
+    RideDTO dto = toRideDTOWithoutOwner(ride);
+    if (dto == null) return null;
+
+    // NEW: Populate owner details from User entity with proper error handling
+    try {
+        if (ride.getOwnerId() != null) {
+            Optional<User> ownerOpt = userRepository.findById(ride.getOwnerId());
+            ownerOpt.ifPresent(owner -> applyOwnerDetails(dto, owner));
+        }
+    } catch (Exception e) {
+        // Log the error but don't fail the entire mapping
+        logger.warn("Could not fetch owner details for ride {}: {}", ride.getId(), e.getMessage());
+    }
+
+    return dto;
+}
+
+    // Ride fields only - owner details are filled in by the caller
+    private RideDTO toRideDTOWithoutOwner(Ride ride) {
     if (ride == null) return null;
 
     RideDTO dto = new RideDTO();
@@ -62,6 +94,7 @@ public class DTOMapper {
     dto.setTotalSeats(ride.getTotalSeats());
     dto.setPricePerSeat(ride.getPricePerSeat());
     dto.setSchedule(ride.getSchedule());
+    dto.setSeriesId(ride.getSeriesId());
     dto.setActive(ride.isActive());
     dto.setCreatedAt(ride.getCreatedAt());
     
@@ -72,37 +105,123 @@ public class DTOMapper {
     }
     dto.setStatus(rideStatus);
     
-    // Include requests, acceptedPassengers, canceledRequests, and bookings
+    // Include requests, acceptedPassengers and canceledRequests. Bookings live in
+    // their own collection and are attached per viewer (see withBookings)
     dto.setRequests(ride.getRequests());
     dto.setAcceptedPassengers(ride.getAcceptedPassengers());
     dto.setCanceledRequests(ride.getCanceledRequests());
-    dto.setBookings(ride.getBookings());
-
-    // NEW: Populate owner details from User entity with proper error handling
-    try {
-        if (ride.getOwnerId() != null) {
-            Optional<User> ownerOpt = userRepository.findById(ride.getOwnerId());
-            if (ownerOpt.isPresent()) {
-                User owner = ownerOpt.get();
-                dto.setOwnerGender(owner.getGender());
-                dto.setOwnerVehicleType(owner.getVehicleType());
-                dto.setOwnerVehicleNumber(owner.getVehicleNumber());
-            }
-        }
-    } catch (Exception e) {
-        // Log the error but don't fail the entire mapping
-        System.err.println("Warning: Could not fetch owner details for ride " + ride.getId() + ": " + e.getMessage());
-    }
 
     return dto;
 }
 
-    // List of Rides to List of RideDTOs
+    // List of Rides to List of RideDTOs - owners are loaded in a single findAllById
+    // instead of one findById per ride
     public List<RideDTO> toRideDTOList(List<Ride> rides) {
         if (rides == null) return new ArrayList<>();
+        return toRideDTOList(rides, loadOwners(rides));
+    }
+
+    // Same, with owners the caller already loaded (see ownerIds)
+    public List<RideDTO> toRideDTOList(List<Ride> rides, Map<String, User> ownersById) {
+        if (rides == null) return new ArrayList<>();
+
+        List<RideDTO> dtos = new ArrayList<>(rides.size());
+        for (Ride ride : rides) {
+            RideDTO dto = toRideDTOWithoutOwner(ride);
+            if (dto == null) continue;
+            User owner = ride.getOwnerId() != null ? ownersById.get(ride.getOwnerId()) : null;
+            if (owner != null) {
+                applyOwnerDetails(dto, owner);
+            }
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+
+    public static Set<String> ownerIds(List<Ride> rides) {
         return rides.stream()
-                .map(this::toRideDTO)
-                .collect(Collectors.toList());
+                .filter(Objects::nonNull)
+                .map(Ride::getOwnerId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    // Ride to RideDTO with the bookings the viewer may see
+    public RideDTO toRideDTO(Ride ride, String viewerId, boolean viewerIsAdmin) {
+        RideDTO dto = toRideDTO(ride);
+        if (dto != null) {
+            withBookings(List.of(dto), viewerId, viewerIsAdmin);
+        }
+        return dto;
+    }
+
+    public List<RideDTO> toRideDTOList(List<Ride> rides, String viewerId, boolean viewerIsAdmin) {
+        return withBookings(toRideDTOList(rides), viewerId, viewerIsAdmin);
+    }
+
+    // The ride owner (or an admin) gets every booking of the ride; any other
+    // signed-in user only their own; anonymous callers none. At most two queries
+    // for the whole list.
+    public List<RideDTO> withBookings(List<RideDTO> dtos, String viewerId, boolean viewerIsAdmin) {
+        if (dtos == null || dtos.isEmpty() || (viewerId == null && !viewerIsAdmin)) return dtos;
+
+        Set<String> fullAccess = new HashSet<>();
+        Set<String> ownOnly = new HashSet<>();
+        for (RideDTO dto : dtos) {
+            if (dto.getId() == null) continue;
+            if (seesAllBookings(dto.getOwnerId(), viewerId, viewerIsAdmin)) {
+                fullAccess.add(dto.getId());
+            } else {
+                ownOnly.add(dto.getId());
+            }
+        }
+
+        List<Booking> bookings = new ArrayList<>();
+        if (!fullAccess.isEmpty()) {
+            bookings.addAll(bookingRepository.findByRideIdIn(fullAccess));
+        }
+        if (!ownOnly.isEmpty() && viewerId != null) {
+            bookings.addAll(bookingRepository.findByPassengerIdAndRideIdIn(viewerId, ownOnly));
+        }
+        return attachBookings(dtos, bookings);
+    }
+
+    public static boolean seesAllBookings(String rideOwnerId, String viewerId, boolean viewerIsAdmin) {
+        return viewerIsAdmin || (viewerId != null && viewerId.equals(rideOwnerId));
+    }
+
+    public static List<RideDTO> attachBookings(List<RideDTO> dtos, List<Booking> bookings) {
+        Map<String, List<Booking>> byRide = bookings.stream()
+                .collect(Collectors.groupingBy(Booking::getRideId));
+        for (RideDTO dto : dtos) {
+            dto.setBookings(byRide.getOrDefault(dto.getId(), new ArrayList<>()));
+        }
+        return dtos;
+    }
+
+    private Map<String, User> loadOwners(List<Ride> rides) {
+        Set<String> ownerIds = ownerIds(rides);
+
+        Map<String, User> ownersById = new HashMap<>();
+        if (ownerIds.isEmpty()) return ownersById;
+
+        try {
+            for (User owner : userRepository.findAllById(ownerIds)) {
+                ownersById.put(owner.getId(), owner);
+            }
+        } catch (Exception e) {
+            // Log the error but don't fail the entire mapping
+            logger.warn("Could not fetch owner details for {} rides: {}", ownerIds.size(), e.getMessage());
+        }
+        return ownersById;
+    }
+
+    private void applyOwnerDetails(RideDTO dto, User owner) {
+        dto.setOwnerGender(owner.getGender());
+        dto.setOwnerVehicleType(owner.getVehicleType());
+        dto.setOwnerVehicleNumber(owner.getVehicleNumber());
+        // Maintained incrementally on the user document, no review scan needed
+        dto.setOwnerRating(owner.getAverageRating() != null ? owner.getAverageRating() : 0.0);
     }
 
     // SignupRequestDTO to User
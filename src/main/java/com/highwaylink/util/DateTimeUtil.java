@@ -0,0 +1,46 @@
+package com.highwaylink.util;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+import com.highwaylink.exception.BadRequestException;
+
+// All ride dates and times are entered and displayed in Sri Lanka time
+// (see spring.jackson.time-zone), independent of the server's default zone.
+public final class DateTimeUtil {
+
+    public static final String ZONE_ID = "Asia/Colombo";
+    public static final ZoneId ZONE = ZoneId.of(ZONE_ID);
+
+    private DateTimeUtil() {
+    }
+
+    // Parses a YYYY-MM-DD date sent by the client
+    public static LocalDate parseDate(String date) {
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid date format, expected YYYY-MM-DD: " + date);
+        }
+    }
+
+    // Parses a HH:mm time sent by the client
+    public static LocalTime parseTime(String time) {
+        try {
+            return LocalTime.parse(time);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Invalid time format, expected HH:mm: " + time);
+        }
+    }
+
+    public static Date toDate(LocalDate date, LocalTime time) {
+        return Date.from(date.atTime(time).atZone(ZONE).toInstant());
+    }
+
+    public static Date startOfDay(LocalDate date) {
+        return Date.from(date.atStartOfDay(ZONE).toInstant());
+    }
+}
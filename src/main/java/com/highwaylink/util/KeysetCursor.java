@@ -0,0 +1,60 @@
+package com.highwaylink.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import org.bson.types.ObjectId;
+
+import com.highwaylink.exception.BadRequestException;
+
+// Continuation token of a keyset page: the sort key and id of the last item,
+// base64url("<sort key epoch millis>_<id>") so clients treat it as opaque.
+public final class KeysetCursor {
+
+    private static final KeysetCursor FIRST_PAGE = new KeysetCursor(null, null);
+
+    private final Date key;
+    private final String id;
+
+    private KeysetCursor(Date key, String id) {
+        this.key = key;
+        this.id = id;
+    }
+
+    public static String encode(Date key, String id) {
+        String raw = (key != null ? key.getTime() : "") + "_" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Null or empty decodes to the first page (key and id null)
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return FIRST_PAGE;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        int separator = raw.indexOf('_');
+        String id = separator > 0 ? raw.substring(separator + 1) : null;
+        if (id == null || !ObjectId.isValid(id)) {
+            throw new BadRequestException("Invalid cursor");
+        }
+        try {
+            return new KeysetCursor(new Date(Long.parseLong(raw.substring(0, separator))), id);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+    public Date getKey() {
+        return key;
+    }
+
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,50 @@
+package com.highwaylink.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Canonical search key for a place name: lowercase, accents stripped, punctuation
+// folded to single spaces. "  Colombo-Fort, " and "colombo fort" share the key
+// "colombo fort". A query matches a place when it is a prefix of the key from any
+// word on, so "fort" and "colombo fo" both find "Colombo Fort". Rides store those
+// word suffixes ("colombo fort", "fort") so Mongo answers the anchored,
+// case-sensitive prefix match from a multikey index.
+public final class PlaceNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private PlaceNormalizer() {
+    }
+
+    public static String toKey(String place) {
+        if (place == null) return null;
+        String key = Normalizer.normalize(place, Normalizer.Form.NFD);
+        key = DIACRITICS.matcher(key).replaceAll("");
+        key = SEPARATORS.matcher(key.toLowerCase(Locale.ROOT)).replaceAll(" ");
+        return key.trim();
+    }
+
+    // The key from each word on, longest first; empty for a place without words
+    public static List<String> wordSuffixes(String place) {
+        String key = toKey(place);
+        List<String> suffixes = new ArrayList<>();
+        if (key == null || key.isEmpty()) return suffixes;
+        suffixes.add(key);
+        for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+            suffixes.add(key.substring(i + 1));
+        }
+        return suffixes;
+    }
+
+    // Regex for keys (or word suffixes) starting with the normalized query, or null
+    // when the query has nothing searchable in it
+    public static String prefixRegex(String query) {
+        String key = toKey(query);
+        if (key == null || key.isEmpty()) return null;
+        return "^" + Pattern.quote(key);
+    }
+}
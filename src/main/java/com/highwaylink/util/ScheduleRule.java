@@ -0,0 +1,67 @@
+package com.highwaylink.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+// Recurrence rule stored in Ride.schedule. Recognized values (case-insensitive):
+//   DAILY, WEEKDAYS (Mon-Fri), WEEKENDS (Sat-Sun),
+//   WEEKLY (same weekday as the ride), WEEKLY:MON,WED,FRI or just MON,WED,FRI.
+// Anything else ("ONETIME", empty, free text from older rides) is not recurring
+// and parse returns null.
+public final class ScheduleRule {
+
+    private final Set<DayOfWeek> days;
+
+    private ScheduleRule(Set<DayOfWeek> days) {
+        this.days = days;
+    }
+
+    public static ScheduleRule parse(String schedule, LocalDate firstDate) {
+        if (schedule == null) return null;
+        String rule = schedule.trim().toUpperCase(Locale.ROOT);
+
+        switch (rule) {
+            case "DAILY":
+                return new ScheduleRule(EnumSet.allOf(DayOfWeek.class));
+            case "WEEKDAYS":
+                return new ScheduleRule(EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY));
+            case "WEEKENDS":
+                return new ScheduleRule(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY));
+            case "WEEKLY":
+                return firstDate != null ? new ScheduleRule(EnumSet.of(firstDate.getDayOfWeek())) : null;
+            default:
+                break;
+        }
+
+        if (rule.startsWith("WEEKLY:")) {
+            rule = rule.substring("WEEKLY:".length());
+        }
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (String part : rule.split(",")) {
+            DayOfWeek day = dayOf(part.trim());
+            if (day == null) return null;
+            days.add(day);
+        }
+        return new ScheduleRule(days);
+    }
+
+    public static boolean isRecurring(String schedule) {
+        return parse(schedule, LocalDate.now(DateTimeUtil.ZONE)) != null;
+    }
+
+    public boolean occursOn(LocalDate date) {
+        return days.contains(date.getDayOfWeek());
+    }
+
+    private static DayOfWeek dayOf(String abbreviation) {
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (abbreviation.length() >= 3 && day.name().startsWith(abbreviation)) {
+                return day;
+            }
+        }
+        return null;
+    }
+}
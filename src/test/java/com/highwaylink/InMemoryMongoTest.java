@@ -0,0 +1,93 @@
+package com.highwaylink;
+
+import java.lang.reflect.Field;
+import java.net.InetSocketAddress;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.ReflectionUtils;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+// Base for tests that run services and jobs against an in-memory MongoDB server
+// (mongo-java-server): a fresh server and MongoTemplate per test, repositories
+// built on it, and @Autowired fields filled by type instead of by name. It has
+// no aggregation $bsonSize and no pipeline updates; stub those on a spy.
+public abstract class InMemoryMongoTest {
+
+    private MongoServer server;
+    private MongoClient client;
+    private String connectionString;
+
+    protected MongoTemplate mongoTemplate;
+
+    @BeforeEach
+    protected void startMongo() {
+        server = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = server.bind();
+        connectionString = "mongodb://" + address.getHostString() + ":" + address.getPort();
+        client = MongoClients.create(connectionString);
+        mongoTemplate = new MongoTemplate(client, "highwaylink-test");
+    }
+
+    @AfterEach
+    protected void stopMongo() {
+        client.close();
+        server.shutdownNow();
+    }
+
+    // For tests that build their own client
+    protected String connectionString() {
+        return connectionString;
+    }
+
+    protected <T> T repository(Class<T> type) {
+        return new MongoRepositoryFactory(mongoTemplate).getRepository(type);
+    }
+
+    // A repository with its *CustomImpl fragment, which gets this test's template
+    protected <T> T repository(Class<T> type, Object customImpl) {
+        autowire(customImpl);
+        return new MongoRepositoryFactory(mongoTemplate).getRepository(type, customImpl);
+    }
+
+    // Sets every @Autowired field of target to the first collaborator of a matching
+    // type, mongoTemplate included. A collaborator no field takes is a mistake in
+    // the test, so it fails.
+    protected <T> T autowire(T target, Object... collaborators) {
+        Object[] candidates = new Object[collaborators.length + 1];
+        System.arraycopy(collaborators, 0, candidates, 0, collaborators.length);
+        candidates[collaborators.length] = mongoTemplate;
+
+        boolean[] used = new boolean[candidates.length];
+        ReflectionUtils.doWithFields(target.getClass(), field -> {
+            for (int i = 0; i < candidates.length; i++) {
+                if (field.getType().isInstance(candidates[i])) {
+                    ReflectionTestUtils.setField(target, field.getName(), candidates[i]);
+                    used[i] = true;
+                    return;
+                }
+            }
+        }, InMemoryMongoTest::isAutowired);
+
+        for (int i = 0; i < collaborators.length; i++) {
+            if (!used[i]) {
+                throw new IllegalArgumentException(target.getClass().getSimpleName()
+                        + " has no @Autowired field for " + collaborators[i].getClass().getSimpleName());
+            }
+        }
+        return target;
+    }
+
+    private static boolean isAutowired(Field field) {
+        return field.isAnnotationPresent(Autowired.class);
+    }
+}
@@ -0,0 +1,44 @@
+package com.highwaylink.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+
+import com.highwaylink.InMemoryMongoTest;
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.reactivestreams.client.MongoClient;
+
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+
+// The two pools must be told apart in mongodb.driver.pool.* while under load
+class ReactiveMongoConfigTest extends InMemoryMongoTest {
+
+    @Test
+    void reactivePoolMetricsAreTaggedReactive() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ReactiveMongoConfig config = new ReactiveMongoConfig();
+
+        // What Spring Boot's pool metrics add to every client
+        DefaultListableBeanFactory beans = new DefaultListableBeanFactory();
+        beans.registerSingleton("poolMetrics", (MongoClientSettingsBuilderCustomizer) builder -> builder
+                .applyToConnectionPoolSettings(pool -> pool.addConnectionPoolListener(
+                        new MongoMetricsConnectionPoolListener(registry, config.mongoConnectionPoolTagsProvider()))));
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(connectionString()))
+                .build();
+
+        try (MongoClient client = config.reactiveStreamsMongoClient(
+                beans.getBeanProvider(MongoClientSettingsBuilderCustomizer.class), settings, registry, 5)) {
+            Mono.from(client.getDatabase("highwaylink-test").runCommand(new Document("ping", 1))).block();
+
+            assertThat(registry.find("mongodb.driver.pool.size").tag("client", "reactive").gauge()).isNotNull();
+            assertThat(registry.find("mongodb.driver.pool.size").tag("client", "blocking").gauge()).isNull();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.highwaylink.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class StreamTicketStoreTest {
+
+    private final AuthenticatedUser user = new AuthenticatedUser("u1", "u1@example.com", "USER", "User One");
+
+    @Test
+    void ticketRedeemsOnce() {
+        StreamTicketStore store = new StreamTicketStore(30, 100);
+        String ticket = store.issue(user);
+
+        assertThat(store.redeem(ticket)).isSameAs(user);
+        assertThat(store.redeem(ticket)).isNull();
+    }
+
+    @Test
+    void unknownAndExpiredTicketsAreRejected() {
+        assertThat(new StreamTicketStore(30, 100).redeem("not-a-ticket")).isNull();
+        assertThat(new StreamTicketStore(30, 100).redeem(null)).isNull();
+
+        StreamTicketStore expiring = new StreamTicketStore(0, 100);
+        assertThat(expiring.redeem(expiring.issue(user))).isNull();
+    }
+
+    @Test
+    void ticketsAreDistinct() {
+        StreamTicketStore store = new StreamTicketStore(30, 100);
+        assertThat(store.issue(user)).isNotEqualTo(store.issue(user));
+    }
+}
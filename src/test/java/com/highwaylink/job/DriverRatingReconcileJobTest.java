@@ -0,0 +1,84 @@
+package com.highwaylink.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.highwaylink.InMemoryMongoTest;
+import com.highwaylink.model.Review;
+import com.highwaylink.model.User;
+import com.highwaylink.repository.UserRepository;
+import com.highwaylink.repository.UserRepositoryCustomImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class DriverRatingReconcileJobTest extends InMemoryMongoTest {
+
+    private DriverRatingReconcileJob job;
+
+    @BeforeEach
+    void setUp() {
+        UserRepository userRepository = repository(UserRepository.class, new UserRepositoryCustomImpl());
+        job = autowire(new DriverRatingReconcileJob(), userRepository, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(job, "settleMs", 60_000L);
+    }
+
+    @Test
+    void rewritesDriftedAggregates() {
+        driver("driver-1", 4, 1);
+        review("driver-1", 5, 3_600_000L);
+        review("driver-1", 3, 3_600_000L);
+
+        assertThat(job.rebuild()).isEqualTo(1);
+
+        User driver = mongoTemplate.findById("driver-1", User.class);
+        assertThat(driver.getRatingSum()).isEqualTo(8);
+        assertThat(driver.getRatingCount()).isEqualTo(2);
+        assertThat(driver.getRatingHistogram()).isEqualTo(Map.of("3", 1L, "5", 1L));
+        assertThat(driver.getAverageRating()).isEqualTo(4.0);
+    }
+
+    @Test
+    void leavesDriversWithAReviewInFlightAlone() {
+        // The second review is saved but its $inc hasn't landed yet
+        driver("driver-1", 5, 1);
+        review("driver-1", 5, 3_600_000L);
+        review("driver-1", 2, 1_000L);
+
+        assertThat(job.rebuild()).isZero();
+
+        User driver = mongoTemplate.findById("driver-1", User.class);
+        assertThat(driver.getRatingCount()).isEqualTo(1);
+    }
+
+    @Test
+    void seedsDriversWithoutAnAggregate() {
+        User driver = new User();
+        driver.setId("driver-1");
+        mongoTemplate.insert(driver);
+        review("driver-1", 4, 3_600_000L);
+
+        assertThat(job.rebuild()).isEqualTo(1);
+        assertThat(mongoTemplate.findById("driver-1", User.class).getRatingCount()).isEqualTo(1);
+    }
+
+    private void driver(String id, long sum, long count) {
+        User driver = new User();
+        driver.setId(id);
+        driver.setRatingSum(sum);
+        driver.setRatingCount(count);
+        driver.setRatingHistogram(Map.of(String.valueOf(sum / count), count));
+        mongoTemplate.insert(driver);
+    }
+
+    private void review(String driverId, int rating, long ageMs) {
+        Review review = new Review("ride", "reviewer", driverId, rating, null);
+        review.setCreatedAt(new Date(System.currentTimeMillis() - ageMs));
+        mongoTemplate.insert(review);
+    }
+}
@@ -0,0 +1,106 @@
+package com.highwaylink.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.highwaylink.InMemoryMongoTest;
+import com.highwaylink.model.Notification;
+import com.highwaylink.model.NotificationArchive;
+import com.highwaylink.service.UnreadCounterService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class NotificationRetentionJobTest extends InMemoryMongoTest {
+
+    private UnreadCounterService unreadCounterService;
+    private SimpleMeterRegistry meterRegistry;
+    private NotificationRetentionJob job;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = spy(mongoTemplate);
+        unreadCounterService = mock(UnreadCounterService.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        job = autowire(new NotificationRetentionJob(), unreadCounterService, meterRegistry);
+        ReflectionTestUtils.setField(job, "enabled", true);
+        ReflectionTestUtils.setField(job, "readDays", 30);
+        ReflectionTestUtils.setField(job, "unreadDays", 90);
+        ReflectionTestUtils.setField(job, "batchSize", 500);
+        ReflectionTestUtils.setField(job, "maxBatches", 20);
+        ReflectionTestUtils.setField(job, "pauseMs", 0L);
+    }
+
+    @Test
+    void archivesAndUncountsOnlyWhatItDeleted() {
+        Notification kept = stale("user-1");
+        Notification other = stale("user-1");
+        Notification elsewhere = stale("user-2");
+        // The in-memory server has no $bsonSize: hand the job its batches directly
+        // (legacy read pass first, then the stale unread one)
+        doReturn(batch()).doReturn(batch(kept, other, elsewhere))
+                .when(mongoTemplate).aggregate(any(Aggregation.class), eq(Notification.class), eq(Document.class));
+        // Read after the batch was fetched, just before it is deleted
+        doAnswer(invocation -> {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(kept.getId())),
+                    new Update().set("isRead", true), Notification.class);
+            return invocation.callRealMethod();
+        }).when(mongoTemplate).remove(any(Query.class), eq(Notification.class));
+
+        job.enforce();
+
+        assertThat(mongoTemplate.findById(kept.getId(), Notification.class)).isNotNull();
+        assertThat(mongoTemplate.findById("user-1", NotificationArchive.class).getArchivedCount()).isEqualTo(1);
+        assertThat(mongoTemplate.findById("user-2", NotificationArchive.class).getArchivedCount()).isEqualTo(1);
+        verify(unreadCounterService).adjust("user-1", -1);
+        verify(unreadCounterService).adjust("user-2", -1);
+        verifyNoMoreInteractions(unreadCounterService);
+        assertThat(meterRegistry.counter("highwaylink.notifications.retention.expired", "tier", "unread").count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.counter("highwaylink.notifications.retention.bytes_reclaimed", "tier", "unread")
+                .count()).isEqualTo(200);
+    }
+
+    private static AggregationResults<Document> batch(Notification... notifications) {
+        List<Document> docs = new ArrayList<>();
+        for (Notification notification : notifications) {
+            docs.add(new Document("_id", new ObjectId(notification.getId()))
+                    .append("userId", notification.getUserId())
+                    .append("type", notification.getType())
+                    .append("createdAt", notification.getCreatedAt())
+                    .append("bytes", 100));
+        }
+        return new AggregationResults<>(docs, new Document());
+    }
+
+    private Notification stale(String userId) {
+        Notification notification = new Notification(userId, "Ride update", "INFO", null);
+        notification.setCreatedAt(Date.from(Instant.now().minus(Duration.ofDays(120))));
+        return mongoTemplate.insert(notification);
+    }
+}
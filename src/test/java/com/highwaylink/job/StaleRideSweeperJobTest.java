@@ -0,0 +1,135 @@
+package com.highwaylink.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.highwaylink.InMemoryMongoTest;
+import com.highwaylink.model.Booking;
+import com.highwaylink.model.Ride;
+import com.highwaylink.repository.RideRepositoryCustomImpl;
+import com.highwaylink.service.NotificationService;
+import com.highwaylink.service.RideRouteIndex;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class StaleRideSweeperJobTest extends InMemoryMongoTest {
+
+    private NotificationService notificationService;
+    private StaleRideSweeperJob job;
+
+    @BeforeEach
+    void setUp() {
+        notificationService = mock(NotificationService.class);
+
+        job = autowire(new StaleRideSweeperJob(), mock(RideRouteIndex.class), notificationService,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(job, "enabled", true);
+        ReflectionTestUtils.setField(job, "graceMinutes", 15);
+        ReflectionTestUtils.setField(job, "batchSize", 200);
+        ReflectionTestUtils.setField(job, "maxBatches", 10);
+    }
+
+    @Test
+    void expiringARideClosesItsRequestsAndBookings() {
+        ride("stale", -3_600_000L, "requester", "passenger");
+        ride("upcoming", 3_600_000L, "requester", "passenger");
+
+        assertThat(job.expireStale()).isEqualTo(1);
+
+        Ride stale = mongoTemplate.findById("stale", Ride.class);
+        assertThat(stale.getStatus()).isEqualTo("EXPIRED");
+        assertThat(stale.isActive()).isFalse();
+        assertThat(stale.getRequests()).isEmpty();
+        assertThat(bookingStatuses("stale")).containsOnly("EXPIRED");
+        assertThat(bookingStatuses("upcoming")).containsExactlyInAnyOrder("PENDING", "APPROVED");
+        verify(notificationService).createNotification(eq("requester"), anyString(), eq("INFO"), eq("stale"));
+    }
+
+    @Test
+    void requestsMadeAfterTheBatchWasReadAreNotified() {
+        ride("stale", -3_600_000L, "requester", "passenger");
+        booking("stale", "late", "PENDING");
+
+        // The request lands between the batch read and the expiry update
+        MongoTemplate template = spy(mongoTemplate);
+        doAnswer(invocation -> {
+            Object batch = invocation.callRealMethod();
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is("stale")),
+                    new Update().push("requests", "late"), Ride.class);
+            return batch;
+        }).when(template).find(any(Query.class), eq(Ride.class));
+        ReflectionTestUtils.setField(job, "mongoTemplate", template);
+
+        assertThat(job.expireStale()).isEqualTo(1);
+
+        assertThat(mongoTemplate.findById("stale", Ride.class).getRequests()).isEmpty();
+        assertThat(bookingStatuses("stale")).containsOnly("EXPIRED");
+        verify(notificationService).createNotification(eq("requester"), anyString(), eq("INFO"), eq("stale"));
+        verify(notificationService).createNotification(eq("late"), anyString(), eq("INFO"), eq("stale"));
+    }
+
+    @Test
+    void seatsOfAnExpiredRideCannotBeReserved() {
+        // Accept read the ride before it expired; its reservation must not land
+        ride("stale", -3_600_000L, "requester", "passenger");
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is("stale")),
+                Update.update("status", "EXPIRED"), Ride.class);
+
+        RideRepositoryCustomImpl rides = autowire(new RideRepositoryCustomImpl());
+
+        assertThat(rides.reserveSeats("stale", "owner", "requester", 1)).isNull();
+        assertThat(mongoTemplate.findById("stale", Ride.class).getSeatsAvailable()).isEqualTo(2);
+    }
+
+    private void ride(String id, long startOffsetMs, String requesterId, String passengerId) {
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setVersion(0L);
+        ride.setOwnerId("owner");
+        ride.setOrigin("Colombo");
+        ride.setDestination("Kandy");
+        ride.setStartTime(new Date(System.currentTimeMillis() + startOffsetMs));
+        ride.setTotalSeats(3);
+        ride.setSeatsAvailable(2);
+        ride.setStatus("SCHEDULED");
+        ride.setRequests(new ArrayList<>(List.of(requesterId)));
+        ride.setAcceptedPassengers(new ArrayList<>(List.of(passengerId)));
+        mongoTemplate.insert(ride);
+
+        booking(id, requesterId, "PENDING");
+        booking(id, passengerId, "APPROVED");
+    }
+
+    private void booking(String rideId, String passengerId, String status) {
+        Booking booking = new Booking();
+        booking.setRideId(rideId);
+        booking.setPassengerId(passengerId);
+        booking.setSeatsRequested(1);
+        booking.setStatus(status);
+        mongoTemplate.insert(booking);
+    }
+
+    private List<String> bookingStatuses(String rideId) {
+        return mongoTemplate.find(Query.query(Criteria.where("rideId").is(rideId)), Booking.class).stream()
+                .map(Booking::getStatus)
+                .toList();
+    }
+}
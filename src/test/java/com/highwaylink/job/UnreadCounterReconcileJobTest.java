@@ -0,0 +1,125 @@
+package com.highwaylink.job;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.highwaylink.InMemoryMongoTest;
+import com.highwaylink.model.Notification;
+import com.highwaylink.model.NotificationCounter;
+import com.highwaylink.repository.NotificationRepository;
+import com.highwaylink.service.NotificationOutbox;
+import com.highwaylink.service.UnreadCounterService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class UnreadCounterReconcileJobTest extends InMemoryMongoTest {
+
+    private NotificationRepository notificationRepository;
+    private UnreadCounterService unreadCounterService;
+    private UnreadCounterReconcileJob job;
+
+    @BeforeEach
+    void setUp() {
+        notificationRepository = mock(NotificationRepository.class);
+
+        unreadCounterService = autowire(new UnreadCounterService(), notificationRepository,
+                mock(NotificationOutbox.class));
+        ReflectionTestUtils.setField(unreadCounterService, "cacheTtlSeconds", 30L);
+        ReflectionTestUtils.setField(unreadCounterService, "cacheMaxSize", 100L);
+        ReflectionTestUtils.invokeMethod(unreadCounterService, "init");
+
+        job = autowire(new UnreadCounterReconcileJob(), notificationRepository, unreadCounterService,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(job, "settleMs", 60_000L);
+    }
+
+    @Test
+    void resetsDriftedCounters() {
+        counter("user-1", 5);
+        counter("user-2", 1);
+        unread("user-1", 2);
+        unread("user-2", 1);
+        when(notificationRepository.countByUserIdAndIsReadFalse("user-1")).thenReturn(2L);
+
+        assertThat(job.recount()).isEqualTo(1);
+
+        assertThat(stored("user-1")).isEqualTo(2);
+        assertThat(stored("user-2")).isEqualTo(1);
+    }
+
+    @Test
+    void skipsCountersIncrementedWhileReconciling() {
+        counter("user-1", 5);
+        unread("user-1", 2);
+        // A counter write from elsewhere lands between the counter read and the reset
+        when(notificationRepository.countByUserIdAndIsReadFalse("user-1")).thenAnswer(invocation -> {
+            unread("user-1", 1);
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is("user-1")),
+                    new Update().inc("unread", 1), NotificationCounter.class);
+            return 2L;
+        });
+
+        assertThat(job.recount()).isZero();
+
+        assertThat(stored("user-1")).isEqualTo(6);
+    }
+
+    @Test
+    void skipsUsersWhoseNotificationWasStoredBeforeItsIncrement() {
+        counter("user-1", 2);
+        unread("user-1", 2);
+        // The outbox has inserted a notification; its listener hasn't run yet
+        mongoTemplate.insert(new Notification("user-1", "Ride update", "INFO", null));
+        when(notificationRepository.countByUserIdAndIsReadFalse("user-1")).thenReturn(3L);
+
+        assertThat(job.recount()).isZero();
+        unreadCounterService.adjust("user-1", 1);
+
+        assertThat(stored("user-1")).isEqualTo(3);
+    }
+
+    @Test
+    void skipsUsersWhoseNotificationWasReadBeforeItsDecrement() {
+        counter("user-1", 2);
+        unread("user-1", 2);
+        // markAsRead has flipped the notification but not yet decremented the counter
+        mongoTemplate.updateFirst(Query.query(Criteria.where("userId").is("user-1")),
+                new Update().set("isRead", true).set("readAt", new Date()), Notification.class);
+        when(notificationRepository.countByUserIdAndIsReadFalse("user-1")).thenReturn(1L);
+
+        assertThat(job.recount()).isZero();
+        unreadCounterService.adjust("user-1", -1);
+
+        assertThat(stored("user-1")).isEqualTo(1);
+    }
+
+    private void counter(String userId, long unread) {
+        NotificationCounter counter = new NotificationCounter();
+        counter.setId(userId);
+        counter.setUnread(unread);
+        mongoTemplate.insert(counter);
+    }
+
+    // Stored well before the settle window
+    private void unread(String userId, int n) {
+        for (int i = 0; i < n; i++) {
+            Notification notification = new Notification(userId, "Ride update", "INFO", null);
+            notification.setCreatedAt(new Date(System.currentTimeMillis() - 600_000L));
+            mongoTemplate.insert(notification);
+        }
+    }
+
+    private long stored(String userId) {
+        return mongoTemplate.findById(userId, NotificationCounter.class).getUnread();
+    }
+}
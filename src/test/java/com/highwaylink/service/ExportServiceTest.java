@@ -0,0 +1,42 @@
+package com.highwaylink.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ExportServiceTest {
+
+    @Test
+    void csvCellsThatLookLikeFormulasAreKeptAsText() throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("passengerName", "=HYPERLINK(\"http://evil\",\"x\")");
+        row.put("origin", "+94 Colombo");
+        row.put("destination", "@Kandy");
+        row.put("note", "-1");
+        row.put("amount", -250.0);
+        row.put("status", "PAID");
+
+        assertThat(csv(row)).isEqualTo("\"'=HYPERLINK(\"\"http://evil\"\",\"\"x\"\")\",'+94 Colombo,'@Kandy,'-1,-250.0,PAID\n");
+    }
+
+    @Test
+    void csvQuotesSeparatorsAndSkipsNulls() throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("origin", "Colombo, Fort");
+        row.put("destination", null);
+        row.put("seats", 2);
+
+        assertThat(csv(row)).isEqualTo("\"Colombo, Fort\",,2\n");
+    }
+
+    private static String csv(Map<String, Object> row) throws IOException {
+        StringWriter writer = new StringWriter();
+        ExportService.writeCsv(writer, row);
+        return writer.toString();
+    }
+}
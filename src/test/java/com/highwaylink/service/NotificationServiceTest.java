@@ -0,0 +1,73 @@
+package com.highwaylink.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.Date;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.highwaylink.InMemoryMongoTest;
+import com.highwaylink.DTO.NotificationFeedDTO;
+import com.highwaylink.model.Notification;
+import com.highwaylink.repository.NotificationRepository;
+import com.highwaylink.repository.NotificationRepositoryCustomImpl;
+
+// The outbox stores notifications after they are created, so the "since" feed
+// must still return one that lands behind a notification the client has seen
+class NotificationServiceTest extends InMemoryMongoTest {
+
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        notificationService = autowire(new NotificationService(),
+                repository(NotificationRepository.class, new NotificationRepositoryCustomImpl()),
+                mock(UnreadCounterService.class), mock(NotificationOutbox.class));
+        ReflectionTestUtils.setField(notificationService, "defaultPageSize", 50);
+        ReflectionTestUtils.setField(notificationService, "maxLagMs", 5_000L);
+    }
+
+    @Test
+    void sinceReturnsNotificationsStoredLateBehindTheCursor() {
+        long now = System.currentTimeMillis();
+        Notification late = notification(now - 2_000L);
+        store(notification(now - 1_000L));
+
+        NotificationFeedDTO first = notificationService.getFeed("user-1", null, null, false, null);
+        assertThat(first.getItems()).hasSize(1);
+
+        // Queued before the one already seen, stored after the poll
+        store(late);
+
+        NotificationFeedDTO next = notificationService.getFeed("user-1", null, first.getLatestCursor(), false, null);
+        assertThat(next.getItems()).extracting(Notification::getId).contains(late.getId());
+    }
+
+    @Test
+    void latestCursorMovesOnOnceNotificationsAreSettled() {
+        long now = System.currentTimeMillis();
+        Notification old = store(notification(now - 60_000L));
+
+        NotificationFeedDTO first = notificationService.getFeed("user-1", null, null, false, null);
+        NotificationFeedDTO next = notificationService.getFeed("user-1", null, first.getLatestCursor(), false, null);
+
+        assertThat(first.getLatestCursor()).startsWith(old.getCreatedAt().getTime() + "_");
+        assertThat(next.getItems()).isEmpty();
+    }
+
+    // Id and createdAt are assigned on creation, as in createNotification
+    private static Notification notification(long createdAt) {
+        Notification notification = new Notification("user-1", "Ride update", "INFO", null);
+        notification.setId(new ObjectId(new Date(createdAt)).toHexString());
+        notification.setCreatedAt(new Date(createdAt));
+        return notification;
+    }
+
+    private Notification store(Notification notification) {
+        return mongoTemplate.insert(notification);
+    }
+}
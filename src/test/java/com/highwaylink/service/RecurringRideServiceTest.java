@@ -0,0 +1,159 @@
+package com.highwaylink.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.highwaylink.InMemoryMongoTest;
+import com.highwaylink.model.Ride;
+import com.highwaylink.util.DateTimeUtil;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class RecurringRideServiceTest extends InMemoryMongoTest {
+
+    private static final LocalTime EIGHT = LocalTime.of(8, 0);
+    private static final LocalTime NINE = LocalTime.of(9, 0);
+
+    private RecurringRideService recurringRideService;
+    private LocalDate today;
+
+    @BeforeEach
+    void setUp() {
+        recurringRideService = autowire(new RecurringRideService(), mock(RideRouteIndex.class),
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(recurringRideService, "horizonDays", 7);
+        ReflectionTestUtils.setField(recurringRideService, "batchSize", 500);
+        today = LocalDate.now(DateTimeUtil.ZONE);
+    }
+
+    @Test
+    void seriesEditLeavesBookedInstancesAsTheyAre() {
+        Ride edited = instance("edited", today.plusDays(1), NINE);
+        Ride free = instance("free", today.plusDays(2), EIGHT);
+        Ride booked = instance("booked", today.plusDays(3), EIGHT);
+        booked.setAcceptedPassengers(new ArrayList<>(List.of("passenger")));
+        booked.setSeatsAvailable(2);
+        Ride requested = instance("requested", today.plusDays(4), EIGHT);
+        requested.setRequests(new ArrayList<>(List.of("requester")));
+        edited.setTotalSeats(4);
+        edited.setSeatsAvailable(4);
+        mongoTemplate.insertAll(List.of(edited, free, booked, requested));
+
+        recurringRideService.applySeriesEdit("edited");
+
+        Ride freeAfter = mongoTemplate.findById("free", Ride.class);
+        assertThat(freeAfter.getStartTime()).isEqualTo(DateTimeUtil.toDate(today.plusDays(2), NINE));
+        assertThat(freeAfter.getTotalSeats()).isEqualTo(4);
+
+        Ride bookedAfter = mongoTemplate.findById("booked", Ride.class);
+        assertThat(bookedAfter.getStartTime()).isEqualTo(DateTimeUtil.toDate(today.plusDays(3), EIGHT));
+        assertThat(bookedAfter.getTotalSeats()).isEqualTo(3);
+        assertThat(bookedAfter.getSeatsAvailable()).isEqualTo(2);
+        assertThat(mongoTemplate.findById("requested", Ride.class).getStartTime())
+                .isEqualTo(DateTimeUtil.toDate(today.plusDays(4), EIGHT));
+    }
+
+    @Test
+    void deletedInstancesAreNotCreatedAgain() {
+        Ride first = instance("first", today.plusDays(1), EIGHT);
+        mongoTemplate.insert(first);
+        assertThat(recurringRideService.materialize(first)).isEqualTo(6);
+
+        Ride last = series().get(series().size() - 1);
+        assertThat(last.getStartTime()).isEqualTo(DateTimeUtil.toDate(today.plusDays(7), EIGHT));
+        mongoTemplate.remove(last);
+
+        assertThat(recurringRideService.materializeAll()).isZero();
+        assertThat(startDays()).doesNotContain(today.plusDays(7));
+
+        // The next night only the new day at the end of the horizon is added
+        ReflectionTestUtils.setField(recurringRideService, "horizonDays", 8);
+        assertThat(recurringRideService.materializeAll()).isEqualTo(1);
+        assertThat(startDays()).contains(today.plusDays(8)).doesNotContain(today.plusDays(7));
+    }
+
+    @Test
+    void seriesEditOnlyAddsTheNewScheduleDays() {
+        // Every day but the weekday of today + 5
+        List<String> days = new ArrayList<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if (day != today.plusDays(5).getDayOfWeek()) {
+                days.add(day.name().substring(0, 3));
+            }
+        }
+        Ride first = instance("first", today.plusDays(1), EIGHT);
+        first.setSchedule(String.join(",", days));
+        mongoTemplate.insert(first);
+        recurringRideService.materialize(first);
+        assertThat(startDays()).doesNotContain(today.plusDays(5));
+        mongoTemplate.remove(Query.query(Criteria.where("startTime").is(DateTimeUtil.toDate(today.plusDays(3),
+                EIGHT))), Ride.class);
+
+        first.setSchedule("DAILY");
+        mongoTemplate.save(first);
+        recurringRideService.applySeriesEdit("first");
+
+        assertThat(startDays()).contains(today.plusDays(5)).doesNotContain(today.plusDays(3));
+    }
+
+    @Test
+    void oneOffEditOfTheFirstRideIsNotCopied() {
+        Ride first = instance("first", today.plusDays(1), EIGHT);
+        first.setPricePerSeat(500);
+        mongoTemplate.insert(first);
+        recurringRideService.materialize(first);
+
+        // Edited for that day only (no series edit)
+        first.setDestination("Galle");
+        first.setPricePerSeat(900);
+        mongoTemplate.save(first);
+
+        ReflectionTestUtils.setField(recurringRideService, "horizonDays", 8);
+        assertThat(recurringRideService.materializeAll()).isEqualTo(1);
+
+        Ride added = series().get(series().size() - 1);
+        assertThat(added.getStartTime()).isEqualTo(DateTimeUtil.toDate(today.plusDays(8), EIGHT));
+        assertThat(added.getDestination()).isEqualTo("Kandy");
+        assertThat(added.getPricePerSeat()).isEqualTo(500);
+    }
+
+    private Ride instance(String id, LocalDate date, LocalTime time) {
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setVersion(0L);
+        ride.setSeriesId("series");
+        ride.setOwnerId("owner");
+        ride.setOrigin("Colombo");
+        ride.setDestination("Kandy");
+        ride.setStartTime(DateTimeUtil.toDate(date, time));
+        ride.setTotalSeats(3);
+        ride.setSeatsAvailable(3);
+        ride.setSchedule("DAILY");
+        ride.setStatus("SCHEDULED");
+        return ride;
+    }
+
+    private List<Ride> series() {
+        return mongoTemplate.find(Query.query(Criteria.where("seriesId").is("series"))
+                .with(Sort.by("startTime")), Ride.class);
+    }
+
+    private List<LocalDate> startDays() {
+        return series().stream()
+                .map(ride -> ride.getStartTime().toInstant().atZone(DateTimeUtil.ZONE).toLocalDate())
+                .toList();
+    }
+}
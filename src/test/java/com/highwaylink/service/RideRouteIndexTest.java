@@ -0,0 +1,121 @@
+package com.highwaylink.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.highwaylink.model.Ride;
+import com.highwaylink.repository.RideRepository;
+
+class RideRouteIndexTest {
+
+    private final RideRepository rideRepository = mock(RideRepository.class);
+    private final RideRouteIndex index = new RideRouteIndex();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "rideRepository", rideRepository);
+    }
+
+    @Test
+    void findsRidesByAnyWordOfThePlace() {
+        when(rideRepository.findByActiveTrueAndSeatsAvailableGreaterThan(0)).thenReturn(List.of(
+                ride("1", "Colombo Fort", "Kandy", 1000),
+                ride("2", "Fort Kochchikade", "Galle", 2000),
+                ride("3", "Negombo", "Kandy City Centre", 3000)));
+        index.resync();
+
+        assertThat(ids("Fort", null)).containsExactly("1", "2");
+        assertThat(ids("colombo fo", null)).containsExactly("1");
+        assertThat(ids(null, "city")).containsExactly("3");
+        assertThat(ids(null, "kandy")).containsExactly("1", "3");
+        assertThat(ids("fort colombo", null)).isEmpty();
+        assertThat(ids(null, null)).containsExactly("1", "2", "3");
+    }
+
+    @Test
+    void removedRidesLeaveEverySuffix() {
+        Ride ride = ride("1", "Colombo Fort", "Kandy", 1000);
+        when(rideRepository.findByActiveTrueAndSeatsAvailableGreaterThan(0)).thenReturn(List.of(ride));
+        index.resync();
+
+        index.remove("1");
+
+        assertThat(ids("fort", null)).isEmpty();
+        assertThat(ids("colombo", null)).isEmpty();
+        assertThat(index.busiestRoutes(10)).isEmpty();
+    }
+
+    @Test
+    void resyncKeepsWritesMadeWhileItReadMongo() {
+        Ride full = ride("1", "Colombo", "Kandy", 1000);
+        Ride deleted = ride("2", "Colombo", "Galle", 2000);
+        when(rideRepository.findByActiveTrueAndSeatsAvailableGreaterThan(0)).thenReturn(List.of(full, deleted));
+        index.resync();
+
+        // The read returns the rides as they were before a booking filled ride 1
+        // and ride 2 was deleted, both landing while it ran
+        when(rideRepository.findByActiveTrueAndSeatsAvailableGreaterThan(0)).thenAnswer(invocation -> {
+            Ride booked = ride("1", "Colombo", "Kandy", 1000);
+            booked.setVersion(1L);
+            booked.setSeatsAvailable(0);
+            index.update(booked);
+            index.remove("2");
+            return List.of(full, deleted);
+        });
+        index.resync();
+
+        assertThat(ids("colombo", null)).isEmpty();
+    }
+
+    @Test
+    void resyncTakesNewerVersionsFromMongo() {
+        when(rideRepository.findByActiveTrueAndSeatsAvailableGreaterThan(0))
+                .thenReturn(List.of(ride("1", "Colombo", "Kandy", 1000)));
+        index.resync();
+
+        Ride newer = ride("1", "Colombo", "Kandy", 5000);
+        newer.setVersion(2L);
+        when(rideRepository.findByActiveTrueAndSeatsAvailableGreaterThan(0)).thenAnswer(invocation -> {
+            Ride local = ride("1", "Colombo", "Kandy", 3000);
+            local.setVersion(1L);
+            index.update(local);
+            return List.of(newer);
+        });
+        index.resync();
+
+        List<Ride> rides = index.findBookable("colombo", null, null, null, null, null, null).orElseThrow();
+        assertThat(rides).extracting(Ride::getVersion).containsExactly(2L);
+
+        // Once no write overlaps the read, Mongo's copy is authoritative again
+        when(rideRepository.findByActiveTrueAndSeatsAvailableGreaterThan(0)).thenReturn(List.of());
+        index.resync();
+        assertThat(ids("colombo", null)).isEmpty();
+    }
+
+    private List<String> ids(String origin, String destination) {
+        return index.findBookable(origin, destination, null, null, null, null, null).orElseThrow().stream()
+                .map(Ride::getId)
+                .toList();
+    }
+
+    static Ride ride(String id, String origin, String destination, long startTime) {
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setVersion(0L);
+        ride.setOrigin(origin);
+        ride.setDestination(destination);
+        ride.setStartTime(new Date(startTime));
+        ride.setTotalSeats(3);
+        ride.setSeatsAvailable(3);
+        ride.setStatus("SCHEDULED");
+        return ride;
+    }
+}
@@ -0,0 +1,121 @@
+package com.highwaylink.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.highwaylink.InMemoryMongoTest;
+import com.highwaylink.exception.BadRequestException;
+import com.highwaylink.exception.ConflictException;
+import com.highwaylink.model.Booking;
+import com.highwaylink.model.Ride;
+import com.highwaylink.repository.BookingRepository;
+import com.highwaylink.repository.RideRepository;
+import com.highwaylink.repository.RideRepositoryCustomImpl;
+import com.highwaylink.util.DTOMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Hundreds of concurrent accepts on one ride against an in-memory MongoDB server:
+// the conditional seat reservation must never oversell it
+class RideServiceConcurrencyTest extends InMemoryMongoTest {
+
+    private static final int TOTAL_SEATS = 25;
+    private static final int PASSENGERS = 300;
+
+    private RideService rideService;
+
+    @BeforeEach
+    void setUp() {
+        RideRepository rideRepository = repository(RideRepository.class, new RideRepositoryCustomImpl());
+        RideRouteIndex rideRouteIndex = autowire(new RideRouteIndex(), rideRepository);
+
+        OptimisticLockRetry optimisticLockRetry = autowire(new OptimisticLockRetry(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(optimisticLockRetry, "maxAttempts", 4);
+        ReflectionTestUtils.setField(optimisticLockRetry, "initialBackoffMs", 5L);
+
+        rideService = autowire(new RideService(), rideRepository, repository(BookingRepository.class),
+                rideRouteIndex, optimisticLockRetry, mock(NotificationService.class), mock(DTOMapper.class));
+    }
+
+    @Test
+    void concurrentAcceptsNeverOversellTheRide() throws Exception {
+        Ride ride = new Ride();
+        ride.setId("ride-1");
+        ride.setVersion(0L);
+        ride.setOwnerId("owner");
+        ride.setOrigin("Colombo");
+        ride.setDestination("Kandy");
+        ride.setStartTime(new Date(System.currentTimeMillis() + 86_400_000L));
+        ride.setTotalSeats(TOTAL_SEATS);
+        ride.setSeatsAvailable(TOTAL_SEATS);
+        ride.setStatus("SCHEDULED");
+        List<String> requests = new ArrayList<>();
+        for (int i = 0; i < PASSENGERS; i++) {
+            String passengerId = "passenger-" + i;
+            requests.add(passengerId);
+            Booking booking = new Booking();
+            booking.setRideId(ride.getId());
+            booking.setPassengerId(passengerId);
+            // Mix of one- and two-seat requests so the last seat is contended too
+            booking.setSeatsRequested(i % 3 == 0 ? 2 : 1);
+            mongoTemplate.insert(booking);
+        }
+        ride.setRequests(requests);
+        mongoTemplate.insert(ride);
+
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger accepted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (String passengerId : requests) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    rideService.acceptBookingRequest(ride.getId(), passengerId, "owner");
+                    accepted.incrementAndGet();
+                } catch (BadRequestException | ConflictException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Ride after = mongoTemplate.findById(ride.getId(), Ride.class);
+        List<Booking> approved = mongoTemplate.find(Query.query(Criteria.where("status").is("APPROVED")),
+                Booking.class);
+        int approvedSeats = approved.stream().mapToInt(Booking::getSeatsRequested).sum();
+
+        assertThat(accepted.get() + rejected.get()).isEqualTo(PASSENGERS);
+        assertThat(after.getSeatsAvailable()).isGreaterThanOrEqualTo(0);
+        assertThat(approvedSeats).isLessThanOrEqualTo(TOTAL_SEATS);
+        assertThat(approvedSeats).isEqualTo(TOTAL_SEATS - after.getSeatsAvailable());
+        assertThat(after.getAcceptedPassengers()).hasSize(accepted.get());
+        assertThat(new HashSet<>(after.getAcceptedPassengers())).hasSize(accepted.get());
+        assertThat(approved).hasSize(accepted.get());
+        // Every seat that could be sold was sold
+        assertThat(after.getSeatsAvailable()).isLessThan(2);
+    }
+}
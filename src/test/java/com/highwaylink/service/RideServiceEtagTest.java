@@ -0,0 +1,96 @@
+package com.highwaylink.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.highwaylink.InMemoryMongoTest;
+import com.highwaylink.model.Ride;
+import com.highwaylink.model.User;
+import com.highwaylink.repository.RideRepository;
+import com.highwaylink.repository.RideRepositoryCustomImpl;
+import com.highwaylink.repository.UserRepository;
+import com.highwaylink.repository.UserRepositoryCustomImpl;
+
+// The listing ETags must change whenever a ride DTO would: a new review or a
+// profile edit of the owner changes it without touching the ride
+class RideServiceEtagTest extends InMemoryMongoTest {
+
+    private RideService rideService;
+
+    @BeforeEach
+    void setUp() {
+        rideService = autowire(new RideService(),
+                repository(RideRepository.class, new RideRepositoryCustomImpl()),
+                repository(UserRepository.class, new UserRepositoryCustomImpl()));
+
+        User owner = new User();
+        owner.setId("owner");
+        owner.setRatingSum(4);
+        owner.setRatingCount(1);
+        mongoTemplate.insert(owner);
+
+        Ride ride = new Ride();
+        ride.setId("5f0c8f1e2b3a4c5d6e7f8a9b");
+        ride.setVersion(0L);
+        ride.setOwnerId("owner");
+        ride.setStartTime(new Date(System.currentTimeMillis() + 86_400_000L));
+        ride.setTotalSeats(3);
+        ride.setSeatsAvailable(2);
+        ride.setAcceptedPassengers(new ArrayList<>(List.of("passenger")));
+        mongoTemplate.insert(ride);
+    }
+
+    @Test
+    void listingEtagsChangeWithTheOwnersRating() {
+        assertListingEtagsChangeAfter(new Update().inc("ratingSum", 5).inc("ratingCount", 1));
+    }
+
+    @Test
+    void listingEtagsChangeWithTheOwnersVehicle() {
+        assertListingEtagsChangeAfter(new Update().set("vehicleType", "Van").set("vehicleNumber", "WP CAB-1234"));
+    }
+
+    @Test
+    void myRidesEtagChangesWhenOneRideReplacesAnother() {
+        String before = rideService.myRidesEtag("passenger", PageRequest.of(0, 20));
+
+        // Same count and version sum, different rides
+        mongoTemplate.remove(Query.query(Criteria.where("_id").is("5f0c8f1e2b3a4c5d6e7f8a9b")), Ride.class);
+        Ride replacement = new Ride();
+        replacement.setId("5f0c8f1e2b3a4c5d6e7f8a9c");
+        replacement.setVersion(0L);
+        replacement.setOwnerId("owner");
+        replacement.setStartTime(new Date(System.currentTimeMillis() + 86_400_000L));
+        replacement.setAcceptedPassengers(new ArrayList<>(List.of("passenger")));
+        mongoTemplate.insert(replacement);
+
+        assertThat(rideService.myRidesEtag("passenger", PageRequest.of(0, 20))).isNotEqualTo(before);
+    }
+
+    private void assertListingEtagsChangeAfter(Update ownerUpdate) {
+        List<Supplier<String>> etags = List.of(
+                () -> rideService.allRidesEtag(null, 20, false, "viewer", false),
+                () -> rideService.myOffersEtag("owner", null, 20, false),
+                () -> rideService.myRidesEtag("passenger", PageRequest.of(0, 20)));
+        List<String> before = etags.stream().map(Supplier::get).toList();
+        assertThat(etags.stream().map(Supplier::get).toList()).isEqualTo(before);
+
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is("owner")), ownerUpdate, User.class);
+
+        List<String> after = etags.stream().map(Supplier::get).toList();
+        for (int i = 0; i < etags.size(); i++) {
+            assertThat(after.get(i)).isNotEqualTo(before.get(i));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.highwaylink.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.highwaylink.DTO.RideDTO;
+import com.highwaylink.model.Ride;
+import com.highwaylink.model.User;
+import com.highwaylink.repository.BookingRepository;
+import com.highwaylink.repository.UserRepository;
+
+class DTOMapperTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final DTOMapper dtoMapper = new DTOMapper(userRepository, bookingRepository);
+
+    @Test
+    void toRideDTOListLoadsAllOwnersInOneQuery() {
+        List<User> owners = new ArrayList<>();
+        List<Ride> rides = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            User owner = new User();
+            owner.setId("owner-" + i);
+            owner.setVehicleType("Car");
+            owner.setAverageRating(4.0 + i / 10.0);
+            owners.add(owner);
+        }
+        for (int i = 0; i < 50; i++) {
+            Ride ride = ride("ride-" + i);
+            ride.setOwnerId("owner-" + (i % 5));
+            rides.add(ride);
+        }
+        when(userRepository.findAllById(anyIterable())).thenReturn(owners);
+
+        List<RideDTO> dtos = dtoMapper.toRideDTOList(rides);
+
+        verify(userRepository, times(1)).findAllById(anyIterable());
+        verify(userRepository, never()).findById(any());
+        assertThat(dtos).hasSize(50);
+        assertThat(dtos).allSatisfy(dto -> assertThat(dto.getOwnerVehicleType()).isEqualTo("Car"));
+        assertThat(dtos.get(7).getOwnerRating()).isEqualTo(4.2);
+    }
+
+    @Test
+    void toRideDTOListSkipsTheOwnerQueryForAnonymousRides() {
+        List<RideDTO> dtos = dtoMapper.toRideDTOList(List.of(ride("ride-1")));
+
+        verify(userRepository, never()).findAllById(anyIterable());
+        verify(userRepository, never()).findById(any());
+        assertThat(dtos).hasSize(1);
+    }
+
+    private static Ride ride(String id) {
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setTotalSeats(4);
+        ride.setSeatsAvailable(4);
+        return ride;
+    }
+}
@@ -0,0 +1,31 @@
+package com.highwaylink.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class PlaceNormalizerTest {
+
+    @Test
+    void keysFoldCaseAccentsAndPunctuation() {
+        assertThat(PlaceNormalizer.toKey("  Colombo-Fort, ")).isEqualTo("colombo fort");
+        assertThat(PlaceNormalizer.toKey("Kégalle")).isEqualTo("kegalle");
+    }
+
+    @Test
+    void wordSuffixesStartAtEveryWord() {
+        assertThat(PlaceNormalizer.wordSuffixes("Colombo Fort Station"))
+                .containsExactly("colombo fort station", "fort station", "station");
+        assertThat(PlaceNormalizer.wordSuffixes(" , ")).isEmpty();
+        assertThat(PlaceNormalizer.wordSuffixes(null)).isEmpty();
+    }
+
+    @Test
+    void prefixRegexMatchesAnyWordSuffix() {
+        String regex = PlaceNormalizer.prefixRegex("Fort");
+        assertThat(PlaceNormalizer.wordSuffixes("Colombo Fort")).anyMatch(suffix -> suffix.matches(regex + ".*"));
+        assertThat(PlaceNormalizer.wordSuffixes("Fortune Bay")).anyMatch(suffix -> suffix.matches(regex + ".*"));
+        assertThat(PlaceNormalizer.wordSuffixes("Kandy")).noneMatch(suffix -> suffix.matches(regex + ".*"));
+        assertThat(PlaceNormalizer.prefixRegex("  ")).isNull();
+    }
+}